@@ -27,6 +27,7 @@ import java.util.Map;
 import de.romandrechsel.listago.appupdate.AppUpdatePlugin;
 import de.romandrechsel.listago.garmin.ConnectIQPlugin;
 import de.romandrechsel.listago.logging.Logger;
+import de.romandrechsel.listago.logging.StartupTracer;
 import de.romandrechsel.listago.share.SharePlugin;
 import de.romandrechsel.listago.sysinfo.SysInfoPlugin;
 import de.romandrechsel.listago.utils.FileUtils;
@@ -35,27 +36,39 @@ public class MainActivity extends BridgeActivity
 {
     private Intent _pendingIntent;
     private static final String TAG = "MainActivity";
+    private static final String PurgedWebviewPrefix = "app_webview.purged-";
     private ArrayList<SysInfoPlugin.InitialAction> _initActions = null;
+    private final StartupScheduler _scheduler = new StartupScheduler();
 
     @Override
     public void onCreate(Bundle savedInstanceState)
     {
+        StartupTracer.Begin("onCreate");
+        Logger.OpenLogFile(this.getApplicationContext());
         registerPlugin(ConnectIQPlugin.class);
         registerPlugin(SysInfoPlugin.class);
         registerPlugin(SharePlugin.class);
         registerPlugin(AppUpdatePlugin.class);
-        this.handleAppUpdate();
+        this._scheduler.Schedule(StartupScheduler.EPhase.Critical, "handleAppUpdate", false, this::handleAppUpdate);
+        this._scheduler.Schedule(StartupScheduler.EPhase.Idle, "deletePurgedWebviewCache", true, this::deletePurgedWebviewCache);
+        this._scheduler.Schedule(StartupScheduler.EPhase.Idle, "trimReceivedCache", true, this::trimReceivedCache);
+        this._scheduler.Schedule(StartupScheduler.EPhase.Idle, "deleteOldArchives", true, () -> SharePlugin.DeleteOldArchives(this.getApplicationContext()));
+        StartupTracer.Begin("bridge");
         super.onCreate(savedInstanceState);
+        StartupTracer.End("bridge");
         Window window = getWindow();
         WindowInsetsControllerCompat insetsController = WindowCompat.getInsetsController(window, window.getDecorView());
         insetsController.setAppearanceLightStatusBars(false);
 
         this.handleIntent(this.getIntent());
+        this._scheduler.Start(this);
+        StartupTracer.End("onCreate");
     }
 
     @Override
     public void onStart()
     {
+        StartupTracer.Begin("onStart");
         super.onStart();
         EdgeToEdge.enable(this);
         WindowCompat.setDecorFitsSystemWindows(getWindow(), false);
@@ -86,6 +99,7 @@ public class MainActivity extends BridgeActivity
                 this._pendingIntent = null;
             }
         }
+        StartupTracer.End("onStart");
     }
 
     @Override
@@ -187,8 +201,7 @@ public class MainActivity extends BridgeActivity
                 Exception ex = null;
                 try
                 {
-                    File webviewCache = new File(getApplicationContext().getCacheDir().getParent(), "app_webview");
-                    success = FileUtils.DeleteDirectory(webviewCache, false).Success;
+                    success = this.purgeWebviewCache();
                 }
                 catch (Exception e)
                 {
@@ -229,4 +242,53 @@ public class MainActivity extends BridgeActivity
             }
         }
     }
+
+    /**
+     * moves the webview cache out of the way, before the webview is created
+     * moving is cheap, the moved cache is deleted in the background, when the app is idle
+     *
+     * @return true, if the cache was moved or deleted
+     */
+    private boolean purgeWebviewCache()
+    {
+        File dataDir = getApplicationContext().getCacheDir().getParentFile();
+        File webviewCache = new File(dataDir, "app_webview");
+        File purged = new File(dataDir, PurgedWebviewPrefix + System.currentTimeMillis());
+        if (webviewCache.isDirectory() && webviewCache.renameTo(purged))
+        {
+            return true;
+        }
+        return FileUtils.DeleteDirectory(webviewCache, false).Success;
+    }
+
+    private void trimReceivedCache()
+    {
+        SysInfoPlugin plugin = this.GetSysInfoPlugin();
+        if (plugin != null)
+        {
+            plugin.TrimReceivedCache();
+        }
+    }
+
+    private void deletePurgedWebviewCache()
+    {
+        File dataDir = getApplicationContext().getCacheDir().getParentFile();
+        File[] purged = dataDir != null ? dataDir.listFiles((dir, name) -> name.startsWith(PurgedWebviewPrefix)) : null;
+        if (purged == null)
+        {
+            return;
+        }
+        for (File dir : purged)
+        {
+            FileUtils.DeleteDirResult result = FileUtils.DeleteDirectory(dir, true);
+            if (result.Success)
+            {
+                Logger.Debug(TAG, () -> "Deleted webview cache with " + result.Files + " file(s) and " + result.Size + " bytes");
+            }
+            else
+            {
+                Logger.Error(TAG, "Could not delete webview cache at '" + dir.getAbsolutePath() + "'");
+            }
+        }
+    }
 }
@@ -0,0 +1,166 @@
+package de.romandrechsel.listago;
+
+import android.app.Activity;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.View;
+import android.view.ViewTreeObserver;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import de.romandrechsel.listago.logging.Logger;
+import de.romandrechsel.listago.logging.StartupTracer;
+
+/**
+ * runs startup tasks in phases, so only the work the first frame depends on runs in onCreate
+ * critical tasks run immediately, idle tasks when the main thread is idle for the first time
+ * after the first frame was drawn, tasks can run on a background thread
+ */
+public class StartupScheduler
+{
+    public enum EPhase
+    {
+        Critical, Idle
+    }
+
+    private static class Task
+    {
+        @NonNull
+        final String Name;
+        final boolean Background;
+        @NonNull
+        final Runnable Runnable;
+
+        Task(@NonNull String name, boolean background, @NonNull Runnable runnable)
+        {
+            this.Name = name;
+            this.Background = background;
+            this.Runnable = runnable;
+        }
+    }
+
+    private static final String TAG = "StartupScheduler";
+
+    @NonNull
+    private final Handler _handler = new Handler(Looper.getMainLooper());
+    @NonNull
+    private final ArrayList<Task> _idle = new ArrayList<>();
+    private ExecutorService _executor = null;
+    private boolean _started = false;
+    private boolean _firstFrameDone = false;
+    private boolean _idleDone = false;
+
+    /**
+     * schedules a task, must be called on the main thread
+     *
+     * @param phase      phase to run the task in
+     * @param name       name of the task in the startup timeline
+     * @param background true, if the task doesn't need the main thread
+     * @param runnable   work of the task
+     */
+    public void Schedule(@NonNull EPhase phase, @NonNull String name, boolean background, @NonNull Runnable runnable)
+    {
+        Task task = new Task(name, background, runnable);
+        if (phase == EPhase.Critical || this._idleDone)
+        {
+            this.run(task);
+        }
+        else
+        {
+            this._idle.add(task);
+        }
+    }
+
+    /**
+     * waits for the first frame of the activity, should be called at the end of onCreate
+     */
+    public void Start(@NonNull Activity activity)
+    {
+        if (this._started)
+        {
+            return;
+        }
+        this._started = true;
+
+        View decorView = activity.getWindow().getDecorView();
+        ViewTreeObserver.OnDrawListener listener = new ViewTreeObserver.OnDrawListener()
+        {
+            @Override
+            public void onDraw()
+            {
+                // listeners can't be removed while drawing, and the tasks should not delay the frame
+                ViewTreeObserver.OnDrawListener self = this;
+                StartupScheduler.this._handler.post(() ->
+                {
+                    if (decorView.getViewTreeObserver().isAlive())
+                    {
+                        decorView.getViewTreeObserver().removeOnDrawListener(self);
+                    }
+                    StartupScheduler.this.onFirstFrame();
+                });
+            }
+        };
+        decorView.getViewTreeObserver().addOnDrawListener(listener);
+    }
+
+    private void onFirstFrame()
+    {
+        if (this._firstFrameDone)
+        {
+            return;
+        }
+        this._firstFrameDone = true;
+        StartupTracer.Mark("firstFrame");
+
+        Looper.myQueue().addIdleHandler(() ->
+        {
+            this._idleDone = true;
+            for (Task task : this._idle)
+            {
+                this.run(task);
+            }
+            this._idle.clear();
+            return false;
+        });
+    }
+
+    private void run(@NonNull Task task)
+    {
+        if (task.Background)
+        {
+            if (this._executor == null)
+            {
+                this._executor = Executors.newSingleThreadExecutor(runnable ->
+                {
+                    Thread thread = new Thread(runnable, "Startup");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+            this._executor.execute(() -> this.execute(task));
+        }
+        else
+        {
+            this.execute(task);
+        }
+    }
+
+    private void execute(@NonNull Task task)
+    {
+        String name = "task:" + task.Name;
+        StartupTracer.Begin(name);
+        try
+        {
+            task.Runnable.run();
+        }
+        catch (Exception e)
+        {
+            Logger.Error(TAG, "Startup task '" + task.Name + "' failed: ", e);
+        }
+        StartupTracer.End(name);
+    }
+}
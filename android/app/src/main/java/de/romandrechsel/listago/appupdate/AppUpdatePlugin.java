@@ -2,11 +2,14 @@ package de.romandrechsel.listago.appupdate;
 
 import android.app.Activity;
 import android.content.ActivityNotFoundException;
+import android.content.Context;
 import android.content.Intent;
+import android.content.SharedPreferences;
 import android.content.pm.PackageInfo;
 import android.content.pm.PackageManager;
 import android.net.Uri;
 import android.os.Build;
+import android.os.SystemClock;
 
 import androidx.activity.result.ActivityResultLauncher;
 import androidx.activity.result.IntentSenderRequest;
@@ -29,7 +32,9 @@ import com.google.android.play.core.install.model.AppUpdateType;
 import com.google.android.play.core.install.model.InstallStatus;
 import com.google.android.play.core.install.model.UpdateAvailability;
 
+import de.romandrechsel.listago.R;
 import de.romandrechsel.listago.logging.Logger;
+import de.romandrechsel.listago.logging.StartupTracer;
 
 @CapacitorPlugin(name = "AppUpdate")
 public class AppUpdatePlugin extends Plugin
@@ -39,12 +44,21 @@ public class AppUpdatePlugin extends Plugin
     private InstallStateUpdatedListener listener = null;
     private PluginCall performUpdateCall = null;
     private ActivityResultLauncher<IntentSenderRequest> activityResultLauncher = null;
+    private int lastNotifiedStatus = -1;
+    private int lastNotifiedPercent = 0;
+    private long lastNotifiedProgress = 0;
 
     private static final String TAG = "AppUpdate";
+    private static final String CacheKey = "appUpdateInfo";
+    private static final String CacheTimeKey = "appUpdateInfoTime";
+    private static final long DefaultCacheMaxAge = 6 * 60 * 60 * 1000;
+    private static final int ProgressStep = 1;
+    private static final long ProgressInterval = 250;
 
     @Override
     public void load()
     {
+        StartupTracer.Begin("load:AppUpdate");
         this.appUpdateManager = AppUpdateManagerFactory.create(this.getContext());
         this.activityResultLauncher = this.getActivity().registerForActivityResult(new ActivityResultContracts.StartIntentSenderForResult(), result ->
         {
@@ -61,11 +75,24 @@ public class AppUpdatePlugin extends Plugin
                 this.performUpdateCall = null;
             }
         });
+        StartupTracer.End("load:AppUpdate");
     }
 
     @PluginMethod
     public void getAppUpdateInfo(PluginCall call)
     {
+        Boolean force = call.getBoolean("force", false);
+        Long maxAge = call.getLong("maxAge", DefaultCacheMaxAge);
+        if (force == null || !force)
+        {
+            JSObject cached = this.readCachedUpdateInfo(maxAge != null ? maxAge : DefaultCacheMaxAge);
+            if (cached != null)
+            {
+                call.resolve(cached);
+                return;
+            }
+        }
+
         try
         {
             if (!this.isGooglePlayServicesAvailable())
@@ -109,6 +136,7 @@ public class AppUpdatePlugin extends Plugin
                     ret.put("clientVersionStalenessDays", clientVersionStalenessDays);
                 }
                 ret.put("installStatus", appUpdateInfo.installStatus());*/
+                this.cacheUpdateInfo(ret);
                 call.resolve(ret);
             });
             appUpdateInfoTask.addOnFailureListener(failure ->
@@ -130,23 +158,67 @@ public class AppUpdatePlugin extends Plugin
 
     @PluginMethod
     public void performUpdate(PluginCall call)
+    {
+        if (this.appUpdateInfo != null)
+        {
+            this.startUpdate(call);
+            return;
+        }
+
+        // the update info was served from cache, the update flow needs the info from the play store
+        try
+        {
+            Task<AppUpdateInfo> appUpdateInfoTask = this.appUpdateManager.getAppUpdateInfo();
+            appUpdateInfoTask.addOnSuccessListener(appUpdateInfo ->
+            {
+                this.appUpdateInfo = appUpdateInfo;
+                this.startUpdate(call);
+            });
+            appUpdateInfoTask.addOnFailureListener(failure ->
+            {
+                Logger.Error(TAG, "Could not get app update info: ", failure);
+                this.startUpdate(call);
+            });
+        }
+        catch (Exception exception)
+        {
+            Logger.Error(TAG, "Could not get app update info: ", exception);
+            this.startUpdate(call);
+        }
+    }
+
+    private void startUpdate(PluginCall call)
     {
         if (this.updateAvailable(call))
         {
             this.performUpdateCall = call;
             if (this.appUpdateInfo.isUpdateTypeAllowed(AppUpdateType.FLEXIBLE))
             {
+                this.lastNotifiedStatus = -1;
+                this.lastNotifiedPercent = 0;
                 this.listener = state ->
                 {
                     int installStatus = state.installStatus();
+                    boolean statusChanged = installStatus != this.lastNotifiedStatus;
+                    if (!statusChanged && installStatus == InstallStatus.DOWNLOADING && !this.progressStepReached(state.bytesDownloaded(), state.totalBytesToDownload()))
+                    {
+                        return;
+                    }
+
                     JSObject ret = new JSObject();
                     ret.put("installStatus", installStatus);
                     if (installStatus == InstallStatus.DOWNLOADING)
                     {
                         ret.put("bytesDownloaded", state.bytesDownloaded());
                         ret.put("totalBytesToDownload", state.totalBytesToDownload());
+                        this.lastNotifiedPercent = this.downloadPercent(state.bytesDownloaded(), state.totalBytesToDownload());
+                        this.lastNotifiedProgress = SystemClock.elapsedRealtime();
+                    }
+                    if (statusChanged)
+                    {
+                        Logger.Debug(TAG, () -> "Flexible update status " + installStatus + ", listeners notified: " + this.hasListeners("onFlexibleUpdateStateChange"));
+                        this.lastNotifiedStatus = installStatus;
                     }
-                    Logger.Debug(TAG, "Listeners notified: " + this.hasListeners("onFlexibleUpdateStateChange"));
                     this.notifyListeners("onFlexibleUpdateStateChange", ret);
                 };
                 this.appUpdateManager.registerListener(this.listener);
@@ -223,6 +295,54 @@ public class AppUpdatePlugin extends Plugin
         }
     }
 
+    /**
+     * gets the last update info from the play store, if it is recent enough and the app was not updated since
+     *
+     * @param maxAge maximum age of the cached info in milliseconds
+     * @return cached update info, or null if there is none
+     */
+    private JSObject readCachedUpdateInfo(long maxAge)
+    {
+        SharedPreferences preferences = this.getPreferences();
+        long time = preferences.getLong(CacheTimeKey, -1);
+        String json = preferences.getString(CacheKey, null);
+        long age = System.currentTimeMillis() - time;
+        if (json == null || time < 0 || age < 0 || age > maxAge)
+        {
+            return null;
+        }
+
+        try
+        {
+            JSObject cached = new JSObject(json);
+            if (!cached.getString("currentVersionCode", "").equals(String.valueOf(this.getPackageInfo().getLongVersionCode())))
+            {
+                return null;
+            }
+            cached.put("cached", true);
+            cached.put("cacheAge", age);
+            return cached;
+        }
+        catch (Exception e)
+        {
+            Logger.Error(TAG, "Could not read cached app update info: ", e);
+            return null;
+        }
+    }
+
+    private void cacheUpdateInfo(JSObject info)
+    {
+        this.getPreferences().edit()
+            .putString(CacheKey, info.toString())
+            .putLong(CacheTimeKey, System.currentTimeMillis())
+            .apply();
+    }
+
+    private SharedPreferences getPreferences()
+    {
+        return this.getContext().getSharedPreferences(this.getContext().getString(R.string.shared_pref), Context.MODE_PRIVATE);
+    }
+
     private boolean updateAvailable(PluginCall call)
     {
         if (this.appUpdateInfo == null)
@@ -242,6 +362,29 @@ public class AppUpdatePlugin extends Plugin
         return true;
     }
 
+    /**
+     * download progress is passed to the app on every full percentage step, but not more often than the minimum interval
+     * the completed download is always passed
+     */
+    private boolean progressStepReached(long bytesDownloaded, long totalBytesToDownload)
+    {
+        int percent = this.downloadPercent(bytesDownloaded, totalBytesToDownload);
+        if (percent >= 100 && this.lastNotifiedPercent < 100)
+        {
+            return true;
+        }
+        return percent >= this.lastNotifiedPercent + ProgressStep && SystemClock.elapsedRealtime() - this.lastNotifiedProgress >= ProgressInterval;
+    }
+
+    private int downloadPercent(long bytesDownloaded, long totalBytesToDownload)
+    {
+        if (totalBytesToDownload <= 0)
+        {
+            return 0;
+        }
+        return (int) Math.min(100, bytesDownloaded * 100 / totalBytesToDownload);
+    }
+
     private void unregisterListener()
     {
         if (this.listener == null || this.appUpdateManager == null)
@@ -10,10 +10,14 @@ import com.getcapacitor.PluginCall;
 import com.getcapacitor.PluginMethod;
 import com.getcapacitor.annotation.CapacitorPlugin;
 
+import org.json.JSONArray;
+import org.json.JSONObject;
+
 import java.util.ArrayList;
 import java.util.List;
 
 import de.romandrechsel.listago.logging.Logger;
+import de.romandrechsel.listago.logging.StartupTracer;
 import de.romandrechsel.listago.utils.HelperUtils;
 
 @CapacitorPlugin(name = "ConnectIQ")
@@ -24,8 +28,10 @@ public class ConnectIQPlugin extends Plugin {
 
     @Override
     public void load() {
+        StartupTracer.Begin("load:ConnectIQ");
         super.load();
-        Logger.Plugin = this;
+        Logger.SetPlugin(this);
+        StartupTracer.End("load:ConnectIQ");
     }
 
     @PluginMethod
@@ -141,14 +147,24 @@ public class ConnectIQPlugin extends Plugin {
         if (this.Manager != null) {
             Long device_id = HelperUtils.toLong(call.getString("device_id", null));
             String message_type = call.getString("type", null);
-            String json = call.getString("json", null);
-
-            this.Manager.SendToDevice(device_id, message_type, json, (result, iq_status) ->
+            DeviceInfo.IMessageSendListener listener = (result, iq_status) ->
             {
                 JSObject ret = new JSObject();
                 ret.put("success", result == DeviceInfo.EMessageSendResult.Success);
+                ret.put("result", result.name());
                 call.resolve(ret);
-            });
+            };
+
+            // structured payloads are encoded directly, the json string is only a fallback for older callers
+            Object data = call.getData().opt("data");
+            if (data instanceof JSONArray || data instanceof JSONObject) {
+                this.Manager.SendDataToDevice(device_id, message_type, data, listener);
+            } else if (data != null && data != JSONObject.NULL) {
+                // scalars like the id of a deleted list are sent as a single entry
+                this.Manager.SendDataToDevice(device_id, message_type, String.valueOf(data), listener);
+            } else {
+                this.Manager.SendToDevice(device_id, message_type, call.getString("json", null), listener);
+            }
         } else {
             call.resolve(null);
         }
@@ -26,13 +26,15 @@ import java.util.List;
 
 import de.romandrechsel.listago.logging.Logger;
 import de.romandrechsel.listago.utils.DeviceUtils;
+import de.romandrechsel.listago.utils.HelperUtils;
+import de.romandrechsel.listago.utils.KeyDictionary;
 
 public class DeviceInfo implements ConnectIQ.IQDeviceEventListener, ConnectIQ.IQApplicationEventListener {
     private static final String TAG = "IQDevice";
 
     public enum DeviceState {Initializing, Ready, AppNotInstalled, CheckingApp, NotConnected, ConnectionLost, NotPaired, InvalidState, ServiceUnavailable}
 
-    public enum EMessageSendResult {Success, NotSend, Timeout, Failed, DeviceNotFound, InvalidState, ServiceUnavailable, MessageEmpty, InvalidPayload}
+    public enum EMessageSendResult {Success, NotSend, Timeout, Failed, DeviceNotFound, InvalidState, ServiceUnavailable, MessageEmpty, InvalidPayload, PayloadTooLarge}
 
     public interface IMessageSendListener {
         void onMessageSendResult(@NonNull EMessageSendResult result, @Nullable ConnectIQ.IQMessageStatus iq_status);
@@ -60,6 +62,32 @@ public class DeviceInfo implements ConnectIQ.IQDeviceEventListener, ConnectIQ.IQ
     @Nullable
     private IDeviceInitializedListener _initListener = null;
 
+    /**
+     * device apps without capabilities accepted every message size before budgets existed, so their messages are not limited
+     */
+    private static final int LegacyMessageBudget = Integer.MAX_VALUE;
+
+    /**
+     * conservative maximum encoded size of a single message for device apps, that announced capabilities but no budget
+     */
+    private static final int DefaultMessageBudget = 16 * 1024;
+
+    /**
+     * maximum encoded size of a single message, the device app accepts
+     */
+    private int _messageBudget = DeviceInfo.LegacyMessageBudget;
+
+    /**
+     * number of list items per page, the device app requests on its own; 0 if the app doesn't support paging
+     */
+    private int _pageSize = 0;
+
+    /**
+     * key dictionary, the device app negotiated; null if the keys are sent in full
+     */
+    @Nullable
+    private KeyDictionary _keyDictionary = null;
+
 
     public DeviceInfo(@NonNull IQDevice device, @NonNull DeviceManager manager, @Nullable IDeviceInitializedListener listener) {
         this.Manager = manager;
@@ -115,23 +143,29 @@ public class DeviceInfo implements ConnectIQ.IQDeviceEventListener, ConnectIQ.IQ
     public void onMessageReceived(IQDevice iqDevice, IQApp iqApp, List<Object> data, ConnectIQ.IQMessageStatus iqMessageStatus) {
         if (iqDevice.getDeviceIdentifier() != this.getDeviceIdentifier() || !iqApp.getApplicationId().equals(this.deviceApp.getApplicationId())) {
             String device_string = iqDevice.getDeviceIdentifier() + " (" + iqDevice.getFriendlyName() + ")";
-            Logger.Debug(TAG, "Received data from other device " + device_string + " - ignoring for device " + this);
+            Logger.Debug(TAG, () -> "Received data from other device " + device_string + " - ignoring for device " + this);
             return;
         }
 
         if (iqMessageStatus != ConnectIQ.IQMessageStatus.SUCCESS || data == null) {
             Logger.Error(TAG, "Could not receive data from device " + this + ": " + iqMessageStatus.name());
         } else {
-            DeviceMessage msg = DeviceUtils.DeserializeStringArray(data.get(0));
-            if (msg != null) {
-                Logger.Debug(TAG, "Received data from device " + this + ": " + msg.Size + " bytes");
-                JSObject event_args = new JSObject();
-                event_args.put("device", this.toJSObject());
-                event_args.put("message", msg.Json());
-                this.Manager.Plugin.emitJsEvent("RECEIVE", event_args);
-            } else {
-                Logger.Error(TAG, "Received invalid data from device " + this);
+            DeviceMessage msg = DeviceMessage.From(data.get(0), this._keyDictionary);
+            if (this.Manager.handleDeviceMessage(this, msg)) {
+                Logger.Debug(TAG, () -> "Handled '" + msg.Type() + "' request from device " + this);
+                return;
             }
+
+            JSObject message = new JSObject();
+            int size = msg.WriteTo(message);
+            Logger.Debug(TAG, () -> {
+                String type = msg.Type();
+                return "Received " + (type != null ? "'" + type + "' " : "") + "data from device " + this + ": " + size + " bytes";
+            });
+            JSObject event_args = new JSObject();
+            event_args.put("device", this.toJSObject());
+            event_args.put("message", message);
+            this.Manager.Plugin.emitJsEvent("RECEIVE", event_args);
         }
     }
 
@@ -162,6 +196,9 @@ public class DeviceInfo implements ConnectIQ.IQDeviceEventListener, ConnectIQ.IQ
     }
 
     public void disconnect() {
+        this._pageSize = 0;
+        this._messageBudget = DeviceInfo.LegacyMessageBudget;
+        this._keyDictionary = null;
         if (this.device != null) {
             try {
                 this.Manager.connectIQ.unregisterForEvents(this.device);
@@ -194,17 +231,111 @@ public class DeviceInfo implements ConnectIQ.IQDeviceEventListener, ConnectIQ.IQ
             send = new ArrayList<>();
         }
 
+        if (this._pageSize > 0 && DeviceManager.MessageTypeList.equals(message_type)) {
+            // only device apps, that request pages, ever read the cached list
+            ListPayloadCache.ListPayload payload = this.Manager.ListCache.Put(send);
+            if (payload != null && (payload.ItemCount() > this._pageSize || this.wireSize(message_type, send) > this.getMessageBudget())) {
+                // lists above the budget are paged too, with smaller pages until the first page fits
+                int page_size = this._pageSize;
+                send = payload.FirstPage(page_size);
+                while (page_size > 1 && this.wireSize(message_type, send) > this.getMessageBudget()) {
+                    page_size /= 2;
+                    send = payload.FirstPage(page_size);
+                }
+                final int first_page = page_size;
+                Logger.Debug(TAG, () -> "Sending first " + first_page + " of " + payload.ItemCount() + " items of list " + payload.Uuid + " to device " + this);
+            }
+        }
+
         if (message_type != null && !message_type.isEmpty()) {
             send.add(0, message_type);
         }
 
-        if (send.isEmpty()) {
-            if (sendListener != null) {
-                sendListener.onMessageSendResult(EMessageSendResult.MessageEmpty, null);
-            }
-        } else {
-            this.transmitToDevice(send, sendListener);
+        this.sendStringArray(send, sendListener);
+    }
+
+    /**
+     * sends a page of list items, the device requested
+     *
+     * @param request request message of the device with the list uuid and the range of items
+     */
+    public void SendListItems(@NonNull DeviceMessage request) {
+        String uuid = request.Get("uuid");
+        String tid = request.TId();
+        ArrayList<String> send = new ArrayList<>();
+        send.add(DeviceManager.MessageTypeListItems);
+        if (tid != null) {
+            send.add("tid=" + tid);
+        }
+
+        if (uuid == null || uuid.isEmpty()) {
+            Logger.Error(TAG, "Device " + this + " requested list items without a list uuid");
+            send.add("missing=true");
+            this.sendStringArray(send, this.listItemsSendListener(null));
+            return;
+        }
+        send.add("uuid=" + uuid);
+
+        ListPayloadCache.ListPayload payload = this.Manager.ListCache.Get(uuid);
+        if (payload == null) {
+            Logger.Notice(TAG, "Device " + this + " requested items of list " + uuid + ", which is not cached");
+            send.add("missing=true");
+            this.sendStringArray(send, this.listItemsSendListener(uuid));
+            return;
+        }
+
+        // the range comes from the device, a page is never larger than the page size the device announced
+        int page_size = Math.max(this._pageSize, 1);
+        Long from_value = HelperUtils.toLong(request.Get("from"));
+        Long to_value = HelperUtils.toLong(request.Get("to"));
+        int from = from_value != null ? (int) Math.max(0, Math.min(from_value, payload.ItemCount())) : 0;
+        int to = to_value != null ? (int) Math.min(Math.max(to_value, from), (long) from + page_size - 1) : from + page_size - 1;
+
+        send.add("from=" + from);
+        send.add("items=" + payload.ItemCount());
+        int header = send.size();
+        payload.AddItems(send, from, to);
+
+        // the device continues with the next missing item, so a smaller page is a valid answer
+        while (to > from && this.wireSize(null, send) > this.getMessageBudget()) {
+            to = from + (to - from) / 2;
+            send.subList(header, send.size()).clear();
+            payload.AddItems(send, from, to);
+        }
+        if (this.wireSize(null, send) > this.getMessageBudget()) {
+            Logger.Error(TAG, "Item " + from + " of list " + uuid + " exceeds the message budget of device " + this);
+            send.subList(header - 2, send.size()).clear();
+            send.add("code=too_large");
         }
+        this.sendStringArray(send, this.listItemsSendListener(uuid));
+    }
+
+    @NonNull
+    private IMessageSendListener listItemsSendListener(@Nullable String uuid) {
+        return (result, iq_status) -> {
+            if (result != EMessageSendResult.Success) {
+                Logger.Error(TAG, "Could not send items of list " + uuid + " to device " + this + ": " + result.name());
+            }
+        };
+    }
+
+    /**
+     * applies the capabilities, the device app announced
+     *
+     * @param capabilities capabilities message of the device
+     */
+    public void setCapabilities(@NonNull DeviceMessage capabilities) {
+        Long paging = HelperUtils.toLong(capabilities.Get("paging"));
+        this._pageSize = paging != null && paging > 0 ? paging.intValue() : 0;
+        Logger.Debug(TAG, "Device " + this + " supports paging: " + (this._pageSize > 0 ? this._pageSize + " items per page" : "no"));
+
+        Long budget = HelperUtils.toLong(capabilities.Get("budget"));
+        this._messageBudget = budget != null && budget > 0 ? (int) Math.min(budget, Integer.MAX_VALUE) : DeviceInfo.DefaultMessageBudget;
+        Logger.Debug(TAG, "Device " + this + " accepts messages up to " + this._messageBudget + " bytes" + (budget == null ? " (default)" : ""));
+
+        Long keys = HelperUtils.toLong(capabilities.Get("keys"));
+        this._keyDictionary = keys != null ? KeyDictionary.Get(keys.intValue()) : null;
+        Logger.Debug(TAG, "Device " + this + " uses key dictionary: " + (this._keyDictionary != null ? "version " + this._keyDictionary.Version : "no"));
     }
 
     /**
@@ -272,6 +403,14 @@ public class DeviceInfo implements ConnectIQ.IQDeviceEventListener, ConnectIQ.IQ
         return false;
     }
 
+    /**
+     * maximum encoded size of a single message, that the device accepts
+     * the budget is announced by the device app in its capabilities, apps without capabilities are not limited
+     */
+    public int getMessageBudget() {
+        return this._messageBudget;
+    }
+
     public long getDeviceIdentifier() {
         if (this.device != null) {
             return this.device.getDeviceIdentifier();
@@ -315,6 +454,58 @@ public class DeviceInfo implements ConnectIQ.IQDeviceEventListener, ConnectIQ.IQ
         }
     }
 
+    /**
+     * calculates the size of a message on the wire, with the message type and the keys encoded like in sendStringArray
+     *
+     * @param message_type type of the message, or null if it is already in line 0
+     * @param send         string array to send, is not modified
+     * @return encoded size in bytes
+     */
+    private int wireSize(@Nullable String message_type, @NonNull List<String> send) {
+        if (this._keyDictionary == null && (message_type == null || message_type.isEmpty())) {
+            return DeviceUtils.EncodedSize(send);
+        }
+        ArrayList<String> message = new ArrayList<>(send.size() + 1);
+        if (message_type != null && !message_type.isEmpty()) {
+            message.add(message_type);
+        }
+        message.addAll(send);
+        if (this._keyDictionary != null) {
+            DeviceUtils.EncodeKeys(message, this._keyDictionary);
+        }
+        return DeviceUtils.EncodedSize(message);
+    }
+
+    /**
+     * checks a prepared string array against the message budget and transmits it
+     *
+     * @param send     string array with the message type in line 0
+     * @param listener listener for send success or failure
+     */
+    private void sendStringArray(@NonNull ArrayList<String> send, @Nullable IMessageSendListener listener) {
+        if (send.isEmpty()) {
+            if (listener != null) {
+                listener.onMessageSendResult(EMessageSendResult.MessageEmpty, null);
+            }
+            return;
+        }
+
+        if (this._keyDictionary != null) {
+            DeviceUtils.EncodeKeys(send, this._keyDictionary);
+        }
+
+        int size = DeviceUtils.EncodedSize(send);
+        if (size > this.getMessageBudget()) {
+            Logger.Error(TAG, "Could not send " + size + " bytes to device " + this + ", message budget is " + this.getMessageBudget() + " bytes");
+            if (listener != null) {
+                listener.onMessageSendResult(EMessageSendResult.PayloadTooLarge, null);
+            }
+            return;
+        }
+
+        this.transmitToDevice(send, listener);
+    }
+
     /**
      * transmits data to the device
      *
@@ -338,14 +529,14 @@ public class DeviceInfo implements ConnectIQ.IQDeviceEventListener, ConnectIQ.IQ
             };
             timeoutHandler.postDelayed(timeoutRunnable, 30000); // 30 Sekunden Timeout
             try {
-                Logger.Debug(TAG, "Trying to transmit data to device " + this + ": ", data.get(0));
+                Logger.Debug(TAG, () -> "Trying to transmit data to device " + this + ": ", data.get(0));
 
                 this.Manager.connectIQ.sendMessage(this.device, this.deviceApp, data, (device, app, status) ->
                 {
                     messageSent[0] = true;
                     timeoutHandler.removeCallbacks(timeoutRunnable);
                     if (status == ConnectIQ.IQMessageStatus.SUCCESS) {
-                        Logger.Debug(TAG, "Transmitted data to device " + this);
+                        Logger.Debug(TAG, () -> "Transmitted data to device " + this);
 
                     } else {
                         Logger.Error(TAG, "Failed to transmit data to device " + this + ": " + status.name());
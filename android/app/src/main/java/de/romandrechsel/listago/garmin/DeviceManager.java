@@ -18,6 +18,7 @@ import com.google.gson.JsonObject;
 import com.google.gson.LongSerializationPolicy;
 
 import org.jetbrains.annotations.NotNull;
+import org.json.JSONObject;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -35,8 +36,15 @@ public class DeviceManager implements ConnectIQ.ConnectIQListener {
         void DevicesInitialized(ArrayList<DeviceInfo> devices);
     }
 
+    public static final String MessageTypeList = "list";
+    public static final String MessageTypeListItems = "list_items";
+    private static final String MessageTypeRequestItems = "req_items";
+    private static final String MessageTypeCapabilities = "caps";
+
     @NonNull
     public ConnectIQPlugin Plugin;
+    @NonNull
+    public final ListPayloadCache ListCache = new ListPayloadCache();
     public ConnectIQ connectIQ;
     private static final String AppIdDebug = "64655bbc-555c-484d-827b-4aef68ff6f5e";
     private static final String AppIdRelease = "f9b0d002-4a4d-45ab-9330-bbed2c3af49f";
@@ -102,6 +110,7 @@ public class DeviceManager implements ConnectIQ.ConnectIQListener {
         }
         this.connectIQ = null;
         this._initListener = null;
+        this.ListCache.Clear();
         Logger.Notice(TAG, "ConnectIQ shutdown successful");
     }
 
@@ -159,30 +168,50 @@ public class DeviceManager implements ConnectIQ.ConnectIQListener {
     }
 
     public void SendToDevice(@Nullable Long deviceId, @Nullable String message_type, @Nullable String json, @Nullable DeviceInfo.IMessageSendListener listener) {
-        if (deviceId == null) {
-            Logger.Error(TAG, "Could not send json to device, no device identifier provided");
+        DeviceInfo device = this.getSendDevice(deviceId, listener);
+        if (device == null) {
+            return;
+        }
+
+        if (json == null || json.isEmpty()) {
+            Logger.Error(TAG, "Could not send empty json to device " + device);
             if (listener != null) {
-                listener.onMessageSendResult(DeviceInfo.EMessageSendResult.DeviceNotFound, null);
+                listener.onMessageSendResult(DeviceInfo.EMessageSendResult.NotSend, null);
             }
             return;
         }
 
-        DeviceInfo device = this.getDevice(deviceId);
-        if (device != null) {
-            if (json == null || json.isEmpty()) {
-                Logger.Error(TAG, "Could not send empty json to device " + device);
-                if (listener != null) {
-                    listener.onMessageSendResult(DeviceInfo.EMessageSendResult.NotSend, null);
-                }
-                return;
-            }
+        device.SendJson(message_type, json, listener);
+        if (this._useGarminSimulator && message_type != null && message_type.equals("req_logs")) {
+            this.debugLogResponse(device, this.getTid(json));
+        }
+    }
 
-            device.SendJson(message_type, json, listener);
-            if (this._useGarminSimulator && message_type != null && message_type.equals("req_logs")) {
-                this.debugLogResponse(device, json);
+    /**
+     * sends structured data from the bridge to a device, without a json string round trip
+     *
+     * @param deviceId     device identifier
+     * @param message_type type of the message
+     * @param data         JSONArray, JSONObject or a scalar string taken directly from the plugin call
+     * @param listener     listener for send success or failure
+     */
+    public void SendDataToDevice(@Nullable Long deviceId, @Nullable String message_type, @Nullable Object data, @Nullable DeviceInfo.IMessageSendListener listener) {
+        DeviceInfo device = this.getSendDevice(deviceId, listener);
+        if (device == null) {
+            return;
+        }
+
+        if (data == null) {
+            Logger.Error(TAG, "Could not send empty data to device " + device);
+            if (listener != null) {
+                listener.onMessageSendResult(DeviceInfo.EMessageSendResult.NotSend, null);
             }
-        } else if (listener != null) {
-            listener.onMessageSendResult(DeviceInfo.EMessageSendResult.DeviceNotFound, null);
+            return;
+        }
+
+        device.Send(message_type, data, listener);
+        if (this._useGarminSimulator && message_type != null && message_type.equals("req_logs")) {
+            this.debugLogResponse(device, data instanceof JSONObject obj ? obj.optString("tid", null) : null);
         }
     }
 
@@ -226,6 +255,31 @@ public class DeviceManager implements ConnectIQ.ConnectIQListener {
         return DeviceManager.AppId.equals(DeviceManager.AppIdDebug);
     }
 
+    /**
+     * handles messages from a device, that don't need the app
+     *
+     * @param device  device, that sent the message
+     * @param message received message
+     * @return true, if the message was handled and must not be passed to the app
+     */
+    public boolean handleDeviceMessage(@NonNull DeviceInfo device, @NonNull DeviceMessage message) {
+        String type = message.Type();
+        if (type == null) {
+            return false;
+        }
+
+        switch (type) {
+            case MessageTypeCapabilities:
+                device.setCapabilities(message);
+                return true;
+            case MessageTypeRequestItems:
+                device.SendListItems(message);
+                return true;
+            default:
+                return false;
+        }
+    }
+
     /**
      * a device changed its state
      *
@@ -289,27 +343,56 @@ public class DeviceManager implements ConnectIQ.ConnectIQListener {
         }
     }
 
-    private void debugLogResponse(@NotNull DeviceInfo device, @NotNull String json) {
-        if (device.device == null) {
-            return;
+    /**
+     * gets the device for a send request, notifies the listener if no device was found
+     *
+     * @param deviceId device identifier
+     * @param listener listener for send failure
+     * @return DeviceInfo object or null
+     */
+    @Nullable
+    private DeviceInfo getSendDevice(@Nullable Long deviceId, @Nullable DeviceInfo.IMessageSendListener listener) {
+        if (deviceId == null) {
+            Logger.Error(TAG, "Could not send data to device, no device identifier provided");
+            if (listener != null) {
+                listener.onMessageSendResult(DeviceInfo.EMessageSendResult.DeviceNotFound, null);
+            }
+            return null;
         }
+
+        DeviceInfo device = this.getDevice(deviceId);
+        if (device == null && listener != null) {
+            listener.onMessageSendResult(DeviceInfo.EMessageSendResult.DeviceNotFound, null);
+        }
+        return device;
+    }
+
+    @Nullable
+    private String getTid(@NotNull String json) {
         Gson gson = new GsonBuilder().setLongSerializationPolicy(LongSerializationPolicy.STRING).create();
         Object obj = gson.fromJson(json, JsonElement.class);
         if (obj instanceof JsonObject jsonobj) {
-            String tid = jsonobj.has("tid") ? jsonobj.get("tid").getAsString() : null;
-            new Handler(Looper.getMainLooper()).postDelayed(() ->
-            {
-                List<Object> resp = new ArrayList<>();
-                if (tid != null) {
-                    resp.add("tid=" + tid);
-                }
-                resp.add("0=Hallo");
-                resp.add("1=Welt");
-                resp.add("2=!");
-                resp.add("3=");
-                resp.add("4");
-                device.onMessageReceived(device.device, device.deviceApp, resp, ConnectIQ.IQMessageStatus.SUCCESS);
-            }, 5000);
+            return jsonobj.has("tid") ? jsonobj.get("tid").getAsString() : null;
         }
+        return null;
+    }
+
+    private void debugLogResponse(@NotNull DeviceInfo device, @Nullable String tid) {
+        if (device.device == null) {
+            return;
+        }
+        new Handler(Looper.getMainLooper()).postDelayed(() ->
+        {
+            List<Object> resp = new ArrayList<>();
+            if (tid != null) {
+                resp.add("tid=" + tid);
+            }
+            resp.add("0=Hallo");
+            resp.add("1=Welt");
+            resp.add("2=!");
+            resp.add("3=");
+            resp.add("4");
+            device.onMessageReceived(device.device, device.deviceApp, resp, ConnectIQ.IQMessageStatus.SUCCESS);
+        }, 5000);
     }
 }
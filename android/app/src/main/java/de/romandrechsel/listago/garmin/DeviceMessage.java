@@ -1,17 +1,174 @@
 package de.romandrechsel.listago.garmin;
 
-import com.google.gson.Gson;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
+import com.getcapacitor.JSObject;
+
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
+
+import de.romandrechsel.listago.utils.DeviceUtils;
+import de.romandrechsel.listago.utils.KeyDictionary;
 
+/**
+ * lazy view over the key=value entries of a message received from a device
+ * entries are only parsed when a key is requested, every key passed while
+ * scanning is indexed, so later lookups don't touch those entries again
+ * entries are scanned from the end, so for duplicate keys the last entry wins, like in DeviceUtils.DecodeStringArray
+ */
 public class DeviceMessage
 {
-    public int Size = 0;
-    public Map<String, Object> Message = new HashMap<>();
+    @NonNull
+    private final List<?> _entries;
+    @NonNull
+    private final HashMap<String, Integer> _index = new HashMap<>();
+    @Nullable
+    private final KeyDictionary _dictionary;
+    private int _scanned = 0;
+
+    private DeviceMessage(@NonNull List<?> entries, @Nullable KeyDictionary dictionary)
+    {
+        this._entries = entries;
+        this._dictionary = dictionary;
+    }
+
+    /**
+     * creates a view over received data
+     *
+     * @param data received data, expected to be a list of key=value strings
+     * @return message view, empty if the data is not a list
+     */
+    @NonNull
+    public static DeviceMessage From(@Nullable Object data)
+    {
+        return DeviceMessage.From(data, null);
+    }
+
+    /**
+     * creates a view over received data with tokenized keys
+     *
+     * @param data       received data, expected to be a list of key=value strings
+     * @param dictionary negotiated key dictionary, or null if the keys are not tokenized
+     * @return message view, empty if the data is not a list
+     */
+    @NonNull
+    public static DeviceMessage From(@Nullable Object data, @Nullable KeyDictionary dictionary)
+    {
+        if (data instanceof List<?> list)
+        {
+            return new DeviceMessage(list, dictionary);
+        }
+        return new DeviceMessage(Collections.emptyList(), dictionary);
+    }
+
+    /**
+     * gets the value of a key, parses entries only until the key is found
+     *
+     * @param key key of the entry
+     * @return value, or null if the key is not part of the message
+     */
+    @Nullable
+    public String Get(@NonNull String key)
+    {
+        Integer position = this._index.get(key);
+        if (position == null)
+        {
+            position = this.scanFor(key);
+        }
+        if (position < 0)
+        {
+            return null;
+        }
+
+        String entry = this.entryAt(position);
+        return entry.substring(entry.indexOf('=') + 1);
+    }
+
+    public boolean Has(@NonNull String key)
+    {
+        return this._index.containsKey(key) || this.scanFor(key) >= 0;
+    }
+
+    /**
+     * type of the message, if the device sent one
+     */
+    @Nullable
+    public String Type()
+    {
+        return this.Get("type");
+    }
+
+    /**
+     * transaction id of the message, if it is a response to a request
+     */
+    @Nullable
+    public String TId()
+    {
+        return this.Get("tid");
+    }
+
+    /**
+     * number of raw entries in the message
+     */
+    public int Count()
+    {
+        return this._entries.size();
+    }
+
+    /**
+     * encoded size of the message in bytes
+     */
+    public int Size()
+    {
+        return DeviceUtils.EncodedSize(this._entries);
+    }
+
+    /**
+     * decodes the whole message into a json object
+     *
+     * @param target json object to write the entries into
+     * @return number of received bytes
+     */
+    public int WriteTo(@NonNull JSObject target)
+    {
+        return DeviceUtils.DecodeStringArray(this._entries, target, this._dictionary);
+    }
+
+    private int scanFor(@NonNull String key)
+    {
+        int count = this._entries.size();
+        while (this._scanned < count)
+        {
+            int position = count - 1 - this._scanned++;
+            String entry = this.entryAt(position);
+            int separator = entry.indexOf('=');
+            if (separator < 0)
+            {
+                continue;
+            }
+
+            if (this._dictionary == null && separator == key.length() && entry.startsWith(key))
+            {
+                this._index.putIfAbsent(key, position);
+                return this._index.get(key);
+            }
+
+            String entry_key = this._dictionary != null ? this._dictionary.DecodeKey(entry, separator) : entry.substring(0, separator);
+            this._index.putIfAbsent(entry_key, position);
+            if (entry_key.equals(key))
+            {
+                return this._index.get(key);
+            }
+        }
+        return -1;
+    }
 
-    public String Json()
+    @NonNull
+    private String entryAt(int position)
     {
-        return new Gson().toJson(this.Message);
+        Object entry = this._entries.get(position);
+        return entry instanceof String str ? str : String.valueOf(entry);
     }
 }
@@ -0,0 +1,193 @@
+package de.romandrechsel.listago.garmin;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * caches the serialized lists that were sent to devices, so pages of list items
+ * requested by the watch can be served without asking the app to serialize the list again
+ */
+public class ListPayloadCache
+{
+    private static final int MaxLists = 8;
+
+    public static class ListPayload
+    {
+        @NonNull
+        public final String Uuid;
+        @NonNull
+        private final ArrayList<String> _entries;
+        @NonNull
+        private final ArrayList<String> _header = new ArrayList<>();
+        /**
+         * entry ranges of every item in list order, as pairs of first and last entry index
+         * an item has more than one range, if its properties are not contiguous in the serialized list
+         */
+        @NonNull
+        private final ArrayList<int[]> _items = new ArrayList<>();
+
+        private ListPayload(@NonNull String uuid, @NonNull List<String> entries)
+        {
+            this.Uuid = uuid;
+            this._entries = new ArrayList<>(entries);
+
+            // item orders may have gaps, the position of an item in the list is the order of its first appearance
+            HashMap<Integer, Integer> positions = new HashMap<>();
+            for (int i = 0; i < this._entries.size(); i++)
+            {
+                String entry = this._entries.get(i);
+                int order = ListPayload.itemOrder(entry);
+                if (order < 0)
+                {
+                    this._header.add(entry);
+                    continue;
+                }
+
+                Integer position = positions.get(order);
+                if (position == null)
+                {
+                    positions.put(order, this._items.size());
+                    this._items.add(new int[]{i, i});
+                    continue;
+                }
+                int[] ranges = this._items.get(position);
+                if (ranges[ranges.length - 1] == i - 1)
+                {
+                    ranges[ranges.length - 1] = i;
+                }
+                else
+                {
+                    ranges = Arrays.copyOf(ranges, ranges.length + 2);
+                    ranges[ranges.length - 2] = i;
+                    ranges[ranges.length - 1] = i;
+                    this._items.set(position, ranges);
+                }
+            }
+        }
+
+        public int ItemCount()
+        {
+            return this._items.size();
+        }
+
+        /**
+         * creates the first page of the list, with all list properties and the total number of items
+         *
+         * @param page_size number of items on the page
+         * @return string array to send to the device
+         */
+        @NonNull
+        public ArrayList<String> FirstPage(int page_size)
+        {
+            ArrayList<String> ret = new ArrayList<>(this._header);
+            ret.add("items=" + this.ItemCount());
+            this.AddItems(ret, 0, page_size - 1);
+            return ret;
+        }
+
+        /**
+         * appends the entries of a range of items
+         *
+         * @param target array to append the entries to
+         * @param from   index of the first item
+         * @param to     index of the last item, inclusive
+         */
+        public void AddItems(@NonNull ArrayList<String> target, int from, int to)
+        {
+            from = Math.max(from, 0);
+            to = Math.min(to, this._items.size() - 1);
+            for (int i = from; i <= to; i++)
+            {
+                int[] ranges = this._items.get(i);
+                for (int r = 0; r < ranges.length; r += 2)
+                {
+                    target.addAll(this._entries.subList(ranges[r], ranges[r + 1] + 1));
+                }
+            }
+        }
+
+        /**
+         * gets the item order of an entry like 'it12_uuid=...'
+         *
+         * @return order of the item, or -1 if the entry is no item property
+         */
+        private static int itemOrder(@NonNull String entry)
+        {
+            if (!entry.startsWith("it"))
+            {
+                return -1;
+            }
+            int order = 0;
+            int i = 2;
+            for (; i < entry.length(); i++)
+            {
+                char c = entry.charAt(i);
+                if (c == '_')
+                {
+                    break;
+                }
+                if (c < '0' || c > '9')
+                {
+                    return -1;
+                }
+                order = order * 10 + (c - '0');
+            }
+            return i > 2 && i < entry.length() ? order : -1;
+        }
+    }
+
+    private final LinkedHashMap<String, ListPayload> _lists = new LinkedHashMap<>(MaxLists, 0.75f, true)
+    {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ListPayload> eldest)
+        {
+            return this.size() > MaxLists;
+        }
+    };
+
+    /**
+     * caches a list payload
+     *
+     * @param entries serialized list, as created by the app
+     * @return cached payload, or null if the entries are no list
+     */
+    @Nullable
+    public synchronized ListPayload Put(@NonNull List<String> entries)
+    {
+        String uuid = null;
+        for (String entry : entries)
+        {
+            if (entry.startsWith("uuid="))
+            {
+                uuid = entry.substring(5);
+                break;
+            }
+        }
+        if (uuid == null || uuid.isEmpty())
+        {
+            return null;
+        }
+
+        ListPayload payload = new ListPayload(uuid, entries);
+        this._lists.put(uuid, payload);
+        return payload;
+    }
+
+    @Nullable
+    public synchronized ListPayload Get(@Nullable String uuid)
+    {
+        return uuid != null ? this._lists.get(uuid) : null;
+    }
+
+    public synchronized void Clear()
+    {
+        this._lists.clear();
+    }
+}
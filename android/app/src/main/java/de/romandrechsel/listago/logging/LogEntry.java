@@ -0,0 +1,43 @@
+package de.romandrechsel.listago.logging;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.getcapacitor.JSObject;
+
+public class LogEntry
+{
+    @NonNull
+    public final Logger.Level Level;
+    @NonNull
+    public final String Tag;
+    @NonNull
+    public final String Message;
+    @Nullable
+    public final Object Obj;
+    public final long Time;
+
+    public LogEntry(@NonNull Logger.Level level, @NonNull String tag, @NonNull String message, @Nullable Object obj)
+    {
+        this.Level = level;
+        this.Tag = tag;
+        this.Message = message;
+        this.Obj = obj;
+        this.Time = System.currentTimeMillis();
+    }
+
+    @NonNull
+    public JSObject toJSObject()
+    {
+        JSObject log = new JSObject();
+        log.put("level", this.Level.Name);
+        log.put("tag", this.Tag);
+        log.put("message", this.Message);
+        log.put("time", this.Time);
+        if (this.Obj != null)
+        {
+            log.put("obj", this.Obj);
+        }
+        return log;
+    }
+}
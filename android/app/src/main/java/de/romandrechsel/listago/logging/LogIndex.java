@@ -0,0 +1,152 @@
+package de.romandrechsel.listago.logging;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+
+/**
+ * in-memory index of the latest log entries
+ * entries are stored column-wise in a ring, so filtering by level, tag and time
+ * only compares primitive values; the time range is found by binary search,
+ * unless the stored times are not ascending, e.g. after the wall clock was set back
+ */
+class LogIndex
+{
+    private final int _capacity;
+    private final long[] _times;
+    private final byte[] _levels;
+    private final int[] _tags;
+    private final String[] _messages;
+    private final ArrayList<String> _tagNames = new ArrayList<>();
+    private final HashMap<String, Integer> _tagIds = new HashMap<>();
+    /**
+     * number of entries added since start, the logical index of the next entry
+     */
+    private long _count = 0;
+    /**
+     * logical index of the latest entry, that is older than its predecessor, or -1 if all times are ascending
+     */
+    private long _lastUnordered = -1;
+
+    LogIndex(int capacity)
+    {
+        this._capacity = capacity;
+        this._times = new long[capacity];
+        this._levels = new byte[capacity];
+        this._tags = new int[capacity];
+        this._messages = new String[capacity];
+    }
+
+    synchronized void Add(@NonNull Logger.Level level, @NonNull String tag, @NonNull String message, long time)
+    {
+        Integer tag_id = this._tagIds.get(tag);
+        if (tag_id == null)
+        {
+            tag_id = this._tagNames.size();
+            this._tagNames.add(tag);
+            this._tagIds.put(tag, tag_id);
+        }
+
+        int slot = (int) (this._count % this._capacity);
+        if (this._count > 0 && time < this._times[(int) ((this._count - 1) % this._capacity)])
+        {
+            this._lastUnordered = this._count;
+        }
+        this._times[slot] = time;
+        this._levels[slot] = (byte) level.Value;
+        this._tags[slot] = tag_id;
+        this._messages[slot] = message;
+        this._count++;
+    }
+
+    /**
+     * queries the indexed entries, newest first
+     *
+     * @param max_level most verbose level to include
+     * @param tags      tags to include, or null for all tags
+     * @param from      earliest timestamp in ms, inclusive
+     * @param to        latest timestamp in ms, inclusive
+     * @param offset    number of matching entries to skip
+     * @param limit     maximum number of entries to return
+     * @return object with the total number of matches and the requested page of entries
+     */
+    @NonNull
+    synchronized JSObject Query(int max_level, @Nullable Collection<String> tags, long from, long to, int offset, int limit)
+    {
+        boolean[] tag_filter = null;
+        if (tags != null)
+        {
+            tag_filter = new boolean[this._tagNames.size()];
+            for (String tag : tags)
+            {
+                Integer tag_id = this._tagIds.get(tag);
+                if (tag_id != null)
+                {
+                    tag_filter[tag_id] = true;
+                }
+            }
+        }
+
+        // the binary search needs ascending times, otherwise all stored entries are scanned
+        long oldest = Math.max(this._count - this._capacity, 0);
+        boolean ordered = this._lastUnordered <= oldest;
+        long first = ordered ? this.firstAtOrAfter(from) : oldest;
+        long last = ordered ? this.firstAtOrAfter(to == Long.MAX_VALUE ? to : to + 1) - 1 : this._count - 1;
+
+        // offset and limit come from the app, their sum must not overflow
+        long end = (long) offset + limit;
+        JSArray entries = new JSArray();
+        int total = 0;
+        for (long i = last; i >= first; i--)
+        {
+            int slot = (int) (i % this._capacity);
+            if (this._levels[slot] > max_level || (tag_filter != null && !tag_filter[this._tags[slot]]) || (!ordered && (this._times[slot] < from || this._times[slot] > to)))
+            {
+                continue;
+            }
+            if (total >= offset && total < end)
+            {
+                JSObject entry = new JSObject();
+                entry.put("time", this._times[slot]);
+                entry.put("level", Logger.Level.FromValue(this._levels[slot]).Name);
+                entry.put("tag", this._tagNames.get(this._tags[slot]));
+                entry.put("message", this._messages[slot]);
+                entries.put(entry);
+            }
+            total++;
+        }
+
+        JSObject ret = new JSObject();
+        ret.put("total", total);
+        ret.put("entries", entries);
+        return ret;
+    }
+
+    /**
+     * logical index of the first stored entry with a timestamp at or after time
+     */
+    private long firstAtOrAfter(long time)
+    {
+        long low = Math.max(this._count - this._capacity, 0);
+        long high = this._count;
+        while (low < high)
+        {
+            long mid = (low + high) >>> 1;
+            if (this._times[(int) (mid % this._capacity)] < time)
+            {
+                low = mid + 1;
+            }
+            else
+            {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,100 @@
+package de.romandrechsel.listago.logging;
+
+import androidx.annotation.NonNull;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * bounded lock-free ring buffer for log entries
+ * any number of threads may write, exactly one consumer thread may drain;
+ * if the buffer is full, new entries are dropped and counted instead of blocking the writer
+ */
+class LogRingBuffer
+{
+    @NonNull
+    private final AtomicReferenceArray<LogEntry> _slots;
+    private final int _mask;
+    private final AtomicLong _tail = new AtomicLong(0);
+    private final AtomicLong _dropped = new AtomicLong(0);
+    /**
+     * only written by the consumer
+     */
+    private volatile long _head = 0;
+
+    /**
+     * @param capacity number of entries, is rounded up to a power of two
+     */
+    LogRingBuffer(int capacity)
+    {
+        int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        this._slots = new AtomicReferenceArray<>(size);
+        this._mask = size - 1;
+    }
+
+    /**
+     * adds an entry to the buffer
+     *
+     * @return false, if the buffer was full and the entry was dropped
+     */
+    boolean Offer(@NonNull LogEntry entry)
+    {
+        while (true)
+        {
+            long tail = this._tail.get();
+            if (tail - this._head > this._mask)
+            {
+                this._dropped.incrementAndGet();
+                return false;
+            }
+            if (this._tail.compareAndSet(tail, tail + 1))
+            {
+                this._slots.set((int) (tail & this._mask), entry);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * moves entries from the buffer to a list, must only be called from the consumer thread
+     *
+     * @param target list to add the entries to
+     * @param max    maximum number of entries
+     * @return number of drained entries
+     */
+    int Drain(@NonNull List<LogEntry> target, int max)
+    {
+        long head = this._head;
+        int count = 0;
+        while (count < max)
+        {
+            int index = (int) (head & this._mask);
+            LogEntry entry = this._slots.get(index);
+            if (entry == null)
+            {
+                // empty, or a writer reserved the slot but did not store its entry yet
+                break;
+            }
+            this._slots.set(index, null);
+            target.add(entry);
+            head++;
+            count++;
+        }
+        this._head = head;
+        return count;
+    }
+
+    int Size()
+    {
+        return (int) (this._tail.get() - this._head);
+    }
+
+    /**
+     * gets the number of dropped entries since the last call
+     */
+    long TakeDropped()
+    {
+        return this._dropped.getAndSet(0);
+    }
+}
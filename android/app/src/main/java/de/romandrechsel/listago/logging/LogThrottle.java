@@ -0,0 +1,194 @@
+package de.romandrechsel.listago.logging;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * collapses repeated log entries and limits the number of entries per tag
+ * identical tag and message pairs within a time window are logged once, repeats are counted;
+ * the counts are reported as summary entries, when the window expires
+ * the first occurrence of an error is always logged, even above the limit of its tag, only its repeats are collapsed
+ */
+class LogThrottle
+{
+    static final long Window = 5000;
+    private static final int MaxPerTag = 30;
+    private static final int MaxTracked = 256;
+
+    static class Summary
+    {
+        @NonNull
+        final Logger.Level Level;
+        @NonNull
+        final String Tag;
+        @NonNull
+        final String Message;
+
+        Summary(@NonNull Logger.Level level, @NonNull String tag, @NonNull String message)
+        {
+            this.Level = level;
+            this.Tag = tag;
+            this.Message = message;
+        }
+    }
+
+    private static class Burst
+    {
+        final Logger.Level Level;
+        final String Tag;
+        final String Message;
+        final long Start;
+        int Repeats = 0;
+
+        Burst(Logger.Level level, String tag, String message, long start)
+        {
+            this.Level = level;
+            this.Tag = tag;
+            this.Message = message;
+            this.Start = start;
+        }
+    }
+
+    private static class TagRate
+    {
+        long Start;
+        int Count = 0;
+        int Dropped = 0;
+    }
+
+    private final HashMap<String, Burst> _bursts = new HashMap<>();
+    private final HashMap<String, TagRate> _rates = new HashMap<>();
+    private final ArrayList<Summary> _pending = new ArrayList<>();
+
+    /**
+     * checks, if an entry should be logged
+     *
+     * @return false, if the entry is a repeat or exceeds the rate limit of its tag
+     */
+    synchronized boolean Admit(@NonNull Logger.Level level, @NonNull String tag, @NonNull String message, long now)
+    {
+        String key = tag + '\n' + message;
+        Burst burst = this._bursts.get(key);
+        if (burst != null && now - burst.Start < Window)
+        {
+            burst.Repeats++;
+            return false;
+        }
+
+        TagRate rate = this._rates.get(tag);
+        if (rate == null)
+        {
+            rate = new TagRate();
+            rate.Start = now;
+            this._rates.put(tag, rate);
+        }
+        else if (now - rate.Start >= Window)
+        {
+            this.reportRate(tag, rate);
+            rate.Start = now;
+            rate.Count = 0;
+        }
+        if (rate.Count >= MaxPerTag && level != Logger.Level.Error)
+        {
+            rate.Dropped++;
+            return false;
+        }
+        rate.Count++;
+
+        if (burst != null)
+        {
+            this.reportBurst(burst);
+        }
+        else if (this._bursts.size() >= MaxTracked)
+        {
+            this.expireBursts(now);
+        }
+        this._bursts.put(key, new Burst(level, tag, message, now));
+        return true;
+    }
+
+    /**
+     * removes expired windows
+     *
+     * @return summaries of the suppressed entries
+     */
+    @NonNull
+    synchronized List<Summary> Expire(long now)
+    {
+        this.expireBursts(now);
+        for (Iterator<HashMap.Entry<String, TagRate>> it = this._rates.entrySet().iterator(); it.hasNext(); )
+        {
+            HashMap.Entry<String, TagRate> entry = it.next();
+            if (now - entry.getValue().Start >= Window)
+            {
+                this.reportRate(entry.getKey(), entry.getValue());
+                it.remove();
+            }
+        }
+
+        if (this._pending.isEmpty())
+        {
+            return new ArrayList<>();
+        }
+        ArrayList<Summary> ret = new ArrayList<>(this._pending);
+        this._pending.clear();
+        return ret;
+    }
+
+    /**
+     * checks, if entries were suppressed, whose summaries are not reported yet
+     */
+    synchronized boolean HasSuppressed()
+    {
+        for (Burst burst : this._bursts.values())
+        {
+            if (burst.Repeats > 0)
+            {
+                return true;
+            }
+        }
+        for (TagRate rate : this._rates.values())
+        {
+            if (rate.Dropped > 0)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void expireBursts(long now)
+    {
+        for (Iterator<Burst> it = this._bursts.values().iterator(); it.hasNext(); )
+        {
+            Burst burst = it.next();
+            if (now - burst.Start >= Window)
+            {
+                this.reportBurst(burst);
+                it.remove();
+            }
+        }
+    }
+
+    private void reportBurst(@NonNull Burst burst)
+    {
+        if (burst.Repeats > 0)
+        {
+            this._pending.add(new Summary(burst.Level, burst.Tag, "Last message repeated " + burst.Repeats + " times: " + burst.Message));
+            burst.Repeats = 0;
+        }
+    }
+
+    private void reportRate(@NonNull String tag, @NonNull TagRate rate)
+    {
+        if (rate.Dropped > 0)
+        {
+            this._pending.add(new Summary(Logger.Level.Important, tag, rate.Dropped + " messages suppressed, more than " + MaxPerTag + " messages within " + (Window / 1000) + " seconds"));
+            rate.Dropped = 0;
+        }
+    }
+}
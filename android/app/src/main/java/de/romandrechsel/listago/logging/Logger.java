@@ -1,22 +1,121 @@
 package de.romandrechsel.listago.logging;
 
+import android.content.Context;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import com.getcapacitor.JSArray;
 import com.getcapacitor.JSObject;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
 import de.romandrechsel.listago.garmin.ConnectIQPlugin;
 
 public class Logger
 {
-    public static ConnectIQPlugin Plugin = null
-        ;
+    private static final String TAG = "Logger";
+    private static final int BufferCapacity = 1024;
+    private static final int BatchSize = 64;
+    /**
+     * delay of the consumer after the first entry was logged, so entries logged together are emitted in one batch
+     */
+    private static final long FlushDelay = 50;
+
+    public static final String LogFileName = "native.log";
+    private static final int LogFileSize = 256 * 1024;
+    private static final int LogIndexSize = 20000;
+    private static final DateTimeFormatter TimeFormat = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+
+    private static volatile ConnectIQPlugin Plugin = null;
+
+    private static volatile MappedLogRing LogFile = null;
+    private static final LogIndex Index = new LogIndex(LogIndexSize);
+    private static final LogThrottle Throttle = new LogThrottle();
+
+    private static final LogRingBuffer Buffer = new LogRingBuffer(BufferCapacity);
+    private static final AtomicBoolean FlushPending = new AtomicBoolean(false);
+    private static final AtomicBoolean ExpiryPending = new AtomicBoolean(false);
+    /**
+     * entries written to the outputs, but not sent to the app yet, only used by the consumer thread
+     */
+    private static final ArrayDeque<LogEntry> Unsent = new ArrayDeque<>();
+    private static long UnsentDropped = 0;
+    private static final ScheduledExecutorService Consumer = Executors.newSingleThreadScheduledExecutor(runnable ->
+    {
+        Thread thread = new Thread(runnable, "Logger");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * log levels, the values match the log levels of the app
+     */
+    public enum Level
+    {
+        Error(1, "error"), Important(2, "important"), Notice(3, "notice"), Debug(4, "debug");
+
+        public final int Value;
+        @NonNull
+        public final String Name;
+
+        Level(int value, @NonNull String name)
+        {
+            this.Value = value;
+            this.Name = name;
+        }
+
+        @NonNull
+        public static Level FromValue(int value)
+        {
+            for (Level level : Level.values())
+            {
+                if (level.Value == value)
+                {
+                    return level;
+                }
+            }
+            return value < Error.Value ? Error : Debug;
+        }
+    }
+
+    private static volatile int MinLevel = Level.Debug.Value;
+
+    /**
+     * sets the most verbose level, that is still logged
+     *
+     * @param level level value of the app, 1 (errors only) to 4 (debug)
+     */
+    public static void SetLevel(int level)
+    {
+        Logger.MinLevel = Math.max(Level.Error.Value, Math.min(level, Level.Debug.Value));
+    }
+
+    public static boolean IsEnabled(@NonNull Level level)
+    {
+        return level.Value <= Logger.MinLevel;
+    }
+
     public static void Debug(@NonNull String tag, @NonNull String message, Object obj)
     {
-        Logger.SendLog("debug", tag, message, obj);
-        Log.d(tag, message);
+        if (Logger.IsEnabled(Level.Debug))
+        {
+            Logger.Write(Level.Debug, tag, message, obj);
+        }
     }
 
     public static void Debug(@NonNull String tag, @NonNull String message)
@@ -24,10 +123,28 @@ public class Logger
         Logger.Debug(tag, message, null);
     }
 
+    /**
+     * logs a debug message, that is only built if debug logging is enabled
+     */
+    public static void Debug(@NonNull String tag, @NonNull Supplier<String> message, Object obj)
+    {
+        if (Logger.IsEnabled(Level.Debug))
+        {
+            Logger.Debug(tag, message.get(), obj);
+        }
+    }
+
+    public static void Debug(@NonNull String tag, @NonNull Supplier<String> message)
+    {
+        Logger.Debug(tag, message, null);
+    }
+
     public static void Notice(@NonNull String tag, @NonNull String message, Object obj)
     {
-        Logger.SendLog("notice", tag, message, obj);
-        Log.i(tag, message);
+        if (Logger.IsEnabled(Level.Notice))
+        {
+            Logger.Write(Level.Notice, tag, message, obj);
+        }
     }
 
     public static void Notice(@NonNull String tag, @NonNull String message)
@@ -35,10 +152,20 @@ public class Logger
         Logger.Notice(tag, message, null);
     }
 
+    public static void Notice(@NonNull String tag, @NonNull Supplier<String> message)
+    {
+        if (Logger.IsEnabled(Level.Notice))
+        {
+            Logger.Notice(tag, message.get(), null);
+        }
+    }
+
     public static void Important(@NonNull String tag, @NonNull String message, Object obj)
     {
-        Logger.SendLog("important", tag, message, obj);
-        Log.w(tag, message);
+        if (Logger.IsEnabled(Level.Important))
+        {
+            Logger.Write(Level.Important, tag, message, obj);
+        }
     }
 
     public static void Important(@NonNull String tag, @NonNull String message)
@@ -48,9 +175,10 @@ public class Logger
 
     public static void Error(@NonNull String tag, @NonNull String message, Object obj)
     {
-        Logger.SendLog("error", tag, message, obj);
-        Log.e(tag, message);
-
+        if (Logger.IsEnabled(Level.Error))
+        {
+            Logger.Write(Level.Error, tag, message, obj);
+        }
     }
 
     public static void Error(@NonNull String tag, @NonNull String message)
@@ -58,20 +186,223 @@ public class Logger
         Logger.Error(tag, message, null);
     }
 
-    private static void SendLog(@NonNull String level, @NonNull String tag, @NonNull String message, @Nullable Object obj)
+    /**
+     * opens the crash-safe native log file in the app storage
+     * mapping the file touches the disk, so it is opened on the logger thread, lines logged before
+     * are only kept in the index and sent to the app
+     *
+     * @param context application context
+     */
+    public static void OpenLogFile(@NonNull Context context)
+    {
+        Context appContext = context.getApplicationContext();
+        Logger.Consumer.execute(() -> Logger.openLogFile(appContext));
+    }
+
+    private static void openLogFile(@NonNull Context context)
+    {
+        if (Logger.LogFile != null)
+        {
+            return;
+        }
+        try
+        {
+            Logger.LogFile = MappedLogRing.Open(new File(context.getFilesDir(), LogFileName), LogFileSize);
+        }
+        catch (IOException ex)
+        {
+            Log.e(TAG, "Could not open native log file: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * reads the native log file, including entries written before the last crash of the app
+     *
+     * @return log lines, or null if the log file is not available
+     */
+    @Nullable
+    public static String ReadLogFile()
+    {
+        MappedLogRing log_file = Logger.LogFile;
+        return log_file != null ? log_file.Read() : null;
+    }
+
+    public static void ClearLogFile()
+    {
+        MappedLogRing log_file = Logger.LogFile;
+        if (log_file != null)
+        {
+            log_file.Clear();
+        }
+    }
+
+    /**
+     * adds an entry to the native log index, without sending it anywhere
+     * used for messages logged by the app itself
+     */
+    public static void AddToIndex(@NonNull Level level, @NonNull String tag, @NonNull String message)
+    {
+        Logger.Index.Add(level, tag, message, System.currentTimeMillis());
+    }
+
+    /**
+     * queries the native log index, newest entries first
+     *
+     * @param level  most verbose level to include
+     * @param tags   tags to include, or null for all tags
+     * @param from   earliest timestamp in ms
+     * @param to     latest timestamp in ms
+     * @param offset number of matching entries to skip
+     * @param limit  maximum number of entries
+     * @return total number of matches and the page of entries
+     */
+    @NonNull
+    public static JSObject QueryLogs(@NonNull Level level, @Nullable Collection<String> tags, long from, long to, int offset, int limit)
+    {
+        return Logger.Index.Query(level.Value, tags, from, to, offset, limit);
+    }
+
+    /**
+     * sets the plugin, that receives the LOG events, entries logged before are sent now
+     */
+    public static void SetPlugin(@Nullable ConnectIQPlugin plugin)
+    {
+        Logger.Plugin = plugin;
+        Logger.wakeConsumer();
+    }
+
+    /**
+     * queues an entry, throttling, formatting and writing to all outputs is done on the consumer thread
+     */
+    private static void Write(@NonNull Level level, @NonNull String tag, @NonNull String message, @Nullable Object obj)
+    {
+        if (Logger.Buffer.Offer(new LogEntry(level, tag, message, obj)))
+        {
+            Logger.wakeConsumer();
+        }
+    }
+
+    /**
+     * schedules the consumer, if it isn't scheduled yet, entries logged until it runs are handled in the same run
+     * the consumer only runs, when something was logged
+     */
+    private static void wakeConsumer()
+    {
+        if (Logger.FlushPending.compareAndSet(false, true))
+        {
+            Logger.Consumer.schedule(Logger::Flush, FlushDelay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * drains the buffer, writes the admitted entries to all outputs and emits them as batched LOG events
+     * runs on the consumer thread only, entries are kept until the plugin is loaded
+     */
+    private static void Flush()
+    {
+        Logger.FlushPending.set(false);
+        try
+        {
+            ArrayList<LogEntry> batch = new ArrayList<>(BatchSize);
+            while (Logger.Buffer.Drain(batch, BatchSize) > 0)
+            {
+                for (LogEntry entry : batch)
+                {
+                    if (Logger.Throttle.Admit(entry.Level, entry.Tag, entry.Message, entry.Time))
+                    {
+                        Logger.output(entry);
+                    }
+                }
+                batch.clear();
+            }
+
+            for (LogThrottle.Summary summary : Logger.Throttle.Expire(System.currentTimeMillis()))
+            {
+                Logger.output(new LogEntry(summary.Level, summary.Tag, summary.Message, null));
+            }
+            // the summaries of suppressed entries are due, when their window expires, even if nothing else is logged
+            if (Logger.Throttle.HasSuppressed() && Logger.ExpiryPending.compareAndSet(false, true))
+            {
+                Logger.Consumer.schedule(() ->
+                {
+                    Logger.ExpiryPending.set(false);
+                    Logger.Flush();
+                }, LogThrottle.Window, TimeUnit.MILLISECONDS);
+            }
+
+            Logger.emit();
+        }
+        catch (Exception ex)
+        {
+            Log.e(TAG, "Could not write log entries: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * writes an entry to logcat, the index and the log file and queues it for the app
+     */
+    private static void output(@NonNull LogEntry entry)
+    {
+        switch (entry.Level)
+        {
+            case Debug -> Log.d(entry.Tag, entry.Message);
+            case Notice -> Log.i(entry.Tag, entry.Message);
+            case Important -> Log.w(entry.Tag, entry.Message);
+            case Error -> Log.e(entry.Tag, entry.Message);
+        }
+
+        String obj_text = entry.Obj != null ? String.valueOf(entry.Obj) : null;
+        Logger.Index.Add(entry.Level, entry.Tag, obj_text != null ? entry.Message + " " + obj_text : entry.Message, entry.Time);
+
+        MappedLogRing log_file = Logger.LogFile;
+        if (log_file != null)
+        {
+            StringBuilder line = new StringBuilder(entry.Message.length() + entry.Tag.length() + (obj_text != null ? obj_text.length() : 0) + 32);
+            line.append('[').append(Character.toUpperCase(entry.Level.Name.charAt(0))).append(']');
+            line.append(TimeFormat.format(Instant.ofEpochMilli(entry.Time))).append(": ").append(entry.Tag).append(": ").append(entry.Message);
+            if (obj_text != null)
+            {
+                line.append('\n').append(obj_text);
+            }
+            line.append('\n');
+            log_file.Write(line.toString().getBytes(StandardCharsets.UTF_8));
+        }
+
+        if (Logger.Unsent.size() >= BufferCapacity)
+        {
+            Logger.Unsent.poll();
+            Logger.UnsentDropped++;
+        }
+        Logger.Unsent.add(entry);
+    }
+
+    /**
+     * emits the queued entries as batched LOG events, if the plugin is loaded
+     */
+    private static void emit()
     {
-        JSObject log = new JSObject();
-        log.put("level", level);
-        log.put("tag", tag);
-        log.put("message", message);
-        if (obj != null)
+        ConnectIQPlugin plugin = Logger.Plugin;
+        if (plugin == null)
         {
-            log.put("obj", obj);
+            return;
         }
 
-        if (Logger.Plugin != null)
+        while (!Logger.Unsent.isEmpty())
         {
-            Logger.Plugin.emitJsEvent("LOG", log);
+            JSArray logs = new JSArray();
+            for (int i = 0; i < BatchSize && !Logger.Unsent.isEmpty(); i++)
+            {
+                logs.put(Logger.Unsent.poll().toJSObject());
+            }
+            JSObject event = new JSObject();
+            event.put("logs", logs);
+            long dropped = Logger.Buffer.TakeDropped() + Logger.UnsentDropped;
+            Logger.UnsentDropped = 0;
+            if (dropped > 0)
+            {
+                event.put("dropped", dropped);
+            }
+            plugin.emitJsEvent("LOG", event);
         }
     }
 }
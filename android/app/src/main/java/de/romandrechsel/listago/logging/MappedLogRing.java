@@ -0,0 +1,125 @@
+package de.romandrechsel.listago.logging;
+
+import androidx.annotation.NonNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * fixed-size log file, that is memory mapped and written as a ring
+ * written lines are in the page cache immediately, so they survive a crash or kill of the process
+ * without flushing the file after every line
+ */
+class MappedLogRing
+{
+    private static final int Magic = 0x4C474F31;
+    /**
+     * magic number, write position, wrapped flag, reserved
+     */
+    private static final int HeaderSize = 16;
+
+    @NonNull
+    private final MappedByteBuffer _buffer;
+    private final int _capacity;
+    private int _position;
+    private boolean _wrapped;
+
+    private MappedLogRing(@NonNull MappedByteBuffer buffer, int size)
+    {
+        this._buffer = buffer;
+        this._capacity = size - HeaderSize;
+
+        int position = buffer.getInt(4);
+        if (buffer.getInt(0) != Magic || position < 0 || position >= this._capacity)
+        {
+            this.Clear();
+        }
+        else
+        {
+            this._position = position;
+            this._wrapped = buffer.getInt(8) != 0;
+        }
+    }
+
+    /**
+     * opens or creates the log file
+     *
+     * @param file log file
+     * @param size total size of the file in bytes
+     */
+    @NonNull
+    static MappedLogRing Open(@NonNull File file, int size) throws IOException
+    {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw"); FileChannel channel = raf.getChannel())
+        {
+            // the mapping stays valid after the channel is closed
+            return new MappedLogRing(channel.map(FileChannel.MapMode.READ_WRITE, 0, size), size);
+        }
+    }
+
+    synchronized void Write(@NonNull byte[] line)
+    {
+        int offset = Math.max(line.length - this._capacity, 0);
+        while (offset < line.length)
+        {
+            int chunk = Math.min(line.length - offset, this._capacity - this._position);
+            this._buffer.position(HeaderSize + this._position);
+            this._buffer.put(line, offset, chunk);
+            offset += chunk;
+            this._position += chunk;
+            if (this._position >= this._capacity)
+            {
+                this._position = 0;
+                this._wrapped = true;
+            }
+        }
+        this._buffer.putInt(4, this._position);
+        this._buffer.putInt(8, this._wrapped ? 1 : 0);
+    }
+
+    /**
+     * reads all complete lines in the order they were written
+     */
+    @NonNull
+    synchronized String Read()
+    {
+        byte[] data;
+        int start = 0;
+        if (this._wrapped)
+        {
+            data = new byte[this._capacity];
+            int tail = this._capacity - this._position;
+            this._buffer.position(HeaderSize + this._position);
+            this._buffer.get(data, 0, tail);
+            this._buffer.position(HeaderSize);
+            this._buffer.get(data, tail, this._position);
+
+            // the oldest line was partially overwritten
+            while (start < data.length && data[start] != '\n')
+            {
+                start++;
+            }
+            start = Math.min(start + 1, data.length);
+        }
+        else
+        {
+            data = new byte[this._position];
+            this._buffer.position(HeaderSize);
+            this._buffer.get(data, 0, this._position);
+        }
+        return new String(data, start, data.length - start, StandardCharsets.UTF_8);
+    }
+
+    synchronized void Clear()
+    {
+        this._position = 0;
+        this._wrapped = false;
+        this._buffer.putInt(0, Magic);
+        this._buffer.putInt(4, 0);
+        this._buffer.putInt(8, 0);
+    }
+}
@@ -0,0 +1,132 @@
+package de.romandrechsel.listago.logging;
+
+import android.os.Process;
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+
+import java.util.ArrayList;
+
+/**
+ * records the timeline of the app start with monotonic timestamps
+ * all times are relative to the start of the process, the timeline is finished, when the app is ready
+ */
+public class StartupTracer
+{
+    private static class Phase
+    {
+        @NonNull
+        final String Name;
+        final long Start;
+        long End = -1;
+
+        Phase(@NonNull String name, long start)
+        {
+            this.Name = name;
+            this.Start = start;
+        }
+    }
+
+    private static final String TAG = "StartupTracer";
+    private static final ArrayList<Phase> Phases = new ArrayList<>();
+    private static boolean Finished = false;
+
+    /**
+     * starts a phase, phases may be nested
+     *
+     * @param name name of the phase
+     */
+    public static synchronized void Begin(@NonNull String name)
+    {
+        if (!Finished)
+        {
+            Phases.add(new Phase(name, SystemClock.elapsedRealtimeNanos()));
+        }
+    }
+
+    /**
+     * ends the last started phase with this name
+     *
+     * @param name name of the phase
+     */
+    public static synchronized void End(@NonNull String name)
+    {
+        if (Finished)
+        {
+            return;
+        }
+        for (int i = Phases.size() - 1; i >= 0; i--)
+        {
+            Phase phase = Phases.get(i);
+            if (phase.End < 0 && phase.Name.equals(name))
+            {
+                phase.End = SystemClock.elapsedRealtimeNanos();
+                return;
+            }
+        }
+    }
+
+    /**
+     * records a point in time without duration
+     *
+     * @param name name of the event
+     */
+    public static synchronized void Mark(@NonNull String name)
+    {
+        if (!Finished)
+        {
+            Phase phase = new Phase(name, SystemClock.elapsedRealtimeNanos());
+            phase.End = phase.Start;
+            Phases.add(phase);
+        }
+    }
+
+    /**
+     * finishes the timeline, later phases are not recorded
+     *
+     * @return the timeline, or null if it was already finished before
+     */
+    public static synchronized JSObject Finish()
+    {
+        if (Finished)
+        {
+            return null;
+        }
+        StartupTracer.Mark("ready");
+        Finished = true;
+
+        long origin = Process.getStartElapsedRealtime() * 1_000_000L;
+        JSArray phases = new JSArray();
+        for (Phase phase : Phases)
+        {
+            JSObject entry = new JSObject();
+            entry.put("name", phase.Name);
+            entry.put("start", StartupTracer.toMillis(phase.Start - origin));
+            if (phase.End > phase.Start)
+            {
+                entry.put("duration", StartupTracer.toMillis(phase.End - phase.Start));
+            }
+            phases.put(entry);
+        }
+
+        Phase ready = Phases.get(Phases.size() - 1);
+        JSObject ret = new JSObject();
+        ret.put("total", StartupTracer.toMillis(ready.Start - origin));
+        ret.put("phases", phases);
+        Phases.clear();
+
+        Logger.Debug(TAG, () -> "App ready " + ret.optDouble("total") + " ms after process start");
+        return ret;
+    }
+
+    /**
+     * nanoseconds to milliseconds with one decimal
+     */
+    private static double toMillis(long nanos)
+    {
+        return Math.round(nanos / 100_000.0) / 10.0;
+    }
+}
@@ -0,0 +1,119 @@
+package de.romandrechsel.listago.share;
+
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.PackageManager;
+import android.content.pm.ResolveInfo;
+import android.net.Uri;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import de.romandrechsel.listago.logging.Logger;
+import de.romandrechsel.listago.sysinfo.InstalledApps;
+
+/**
+ * resolves the installed email apps and keeps a prepared intent template for each of them
+ * the list is resolved again after a package was installed, updated or removed,
+ * the package changes are received by the receiver of {@link InstalledApps}
+ */
+public class EmailApps
+{
+    private static final String TAG = "EmailApps";
+
+    @NonNull
+    private final Context _context;
+    private volatile List<Intent> _templates = null;
+    /**
+     * incremented on every package change, a list resolved before a change must not be cached
+     */
+    private int _generation = 0;
+    private boolean _registered = false;
+
+    private final InstalledApps.IPackageListener _packageListener = packageName -> this.invalidate();
+
+    public EmailApps(@NonNull Context context)
+    {
+        this._context = context.getApplicationContext();
+    }
+
+    /**
+     * starts listening for package changes, until then the email apps are resolved on every call
+     */
+    public synchronized void Register()
+    {
+        if (this._registered)
+        {
+            return;
+        }
+        InstalledApps.AddPackageListener(this._packageListener);
+        this._registered = true;
+    }
+
+    public synchronized void Unregister()
+    {
+        if (!this._registered)
+        {
+            return;
+        }
+        InstalledApps.RemovePackageListener(this._packageListener);
+        this._registered = false;
+        this.invalidate();
+    }
+
+    /**
+     * gets an intent template for every email app, targeted at the app and allowed to read shared files
+     * the templates must be copied before extras are added
+     *
+     * @return intent templates, empty if no email app is installed
+     */
+    @NonNull
+    public List<Intent> Templates()
+    {
+        List<Intent> templates = this._templates;
+        if (templates != null)
+        {
+            return templates;
+        }
+
+        int generation;
+        synchronized (this)
+        {
+            generation = this._generation;
+        }
+
+        PackageManager pm = this._context.getPackageManager();
+        Intent probe = new Intent(Intent.ACTION_SENDTO, Uri.parse("mailto:"));
+        List<ResolveInfo> emailApps = pm.queryIntentActivities(probe, 0);
+
+        ArrayList<Intent> ret = new ArrayList<>(emailApps.size());
+        for (ResolveInfo info : emailApps)
+        {
+            Intent template = new Intent(Intent.ACTION_SEND);
+            template.setType("*/*");
+            template.addFlags(Intent.FLAG_GRANT_READ_URI_PERMISSION);
+            template.setPackage(info.activityInfo.packageName);
+            ret.add(template);
+        }
+        templates = Collections.unmodifiableList(ret);
+        synchronized (this)
+        {
+            // a package may have changed while resolving, then the list is returned, but not cached
+            if (this._registered && this._generation == generation && InstalledApps.IsListening())
+            {
+                this._templates = templates;
+            }
+        }
+        Logger.Debug(TAG, () -> "Resolved " + ret.size() + " email app(s)");
+        return templates;
+    }
+
+    private synchronized void invalidate()
+    {
+        this._generation++;
+        this._templates = null;
+    }
+}
@@ -1,11 +1,11 @@
 package de.romandrechsel.listago.share;
 
+import android.content.Context;
 import android.content.Intent;
-import android.content.pm.PackageManager;
-import android.content.pm.ResolveInfo;
 import android.net.Uri;
 import android.os.Parcelable;
 
+import androidx.annotation.NonNull;
 import androidx.core.content.FileProvider;
 
 import com.getcapacitor.JSArray;
@@ -17,27 +17,70 @@ import com.getcapacitor.annotation.CapacitorPlugin;
 
 import org.json.JSONException;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import de.romandrechsel.listago.logging.Logger;
+import de.romandrechsel.listago.logging.StartupTracer;
 
 @CapacitorPlugin(name = "SharePlugin")
 public class SharePlugin extends Plugin
 {
     private static final String TAG = "SharePlugin";
+    private static final String ArchiveDirectory = "export/attachments";
+    private static final int BufferSize = 64 * 1024;
+    /**
+     * an email app may still read a shared archive after the chooser was closed, so archives are kept for a day
+     */
+    private static final long ArchiveMaxAge = 24 * 60 * 60 * 1000;
+
+    private final ExecutorService _archiveExecutor = Executors.newSingleThreadExecutor();
+    private EmailApps _emailApps = null;
+
+    @Override
+    public void load()
+    {
+        StartupTracer.Begin("load:Share");
+        this._emailApps = new EmailApps(this.getContext());
+        this._emailApps.Register();
+        // the email apps are resolved in the background, so the chooser opens without delay
+        this._archiveExecutor.execute(this._emailApps::Templates);
+        StartupTracer.End("load:Share");
+    }
+
+    @Override
+    protected void handleOnDestroy()
+    {
+        if (this._emailApps != null)
+        {
+            this._emailApps.Unregister();
+        }
+        this._archiveExecutor.shutdown();
+        super.handleOnDestroy();
+    }
 
     @PluginMethod
     public void SendEmail(PluginCall call) throws JSONException
     {
-        JSObject ret = new JSObject();
-
         String receiver = call.getString("receiver", null);
         String subject = call.getString("subject", null);
         String body = call.getString("body", null);
         JSArray attachments = call.getArray("attachments", null);
         String chooserTitle = call.getString("chooserTitle", null);
+        String archive = call.getString("archive", null);
 
-        ArrayList<Uri> uris = new ArrayList<>();
+        ArrayList<File> files = new ArrayList<>();
         if (attachments != null)
         {
             List<Object> paths = attachments.toList();
@@ -49,19 +92,55 @@ public class SharePlugin extends Plugin
                     File file = new File(uri.getPath());
                     if (file.exists())
                     {
-                        Uri contentUri = FileProvider.getUriForFile(this.getContext(), this.getContext().getPackageName() + ".fileprovider", file);
-                        uris.add(contentUri);
+                        files.add(file);
                     }
                 }
 
             }
         }
 
-        PackageManager pm = this.getContext().getPackageManager();
-        Intent probe = new Intent(Intent.ACTION_SENDTO, Uri.parse("mailto:"));
-        List<ResolveInfo> emailApps = pm.queryIntentActivities(probe, 0);
+        if (archive == null || files.isEmpty())
+        {
+            this.sendEmail(call, receiver, subject, body, files, chooserTitle);
+            return;
+        }
+
+        // the attachments are compressed in the background, the email app gets a single archive
+        this._archiveExecutor.execute(() ->
+        {
+            File zip = this.bundleAttachments(files, archive);
+            if (zip == null)
+            {
+                JSObject ret = new JSObject();
+                ret.put("success", false);
+                ret.put("message", "Could not create archive of attachments");
+                call.resolve(ret);
+                return;
+            }
+            ArrayList<File> bundled = new ArrayList<>();
+            bundled.add(zip);
+            this.sendEmail(call, receiver, subject, body, bundled, chooserTitle);
+        });
+    }
+
+    private void sendEmail(PluginCall call, String receiver, String subject, String body, List<File> files, String chooserTitle)
+    {
+        JSObject ret = new JSObject();
+
+        ArrayList<Uri> uris = new ArrayList<>();
+        for (File file : files)
+        {
+            Uri contentUri = FileProvider.getUriForFile(this.getContext(), this.getContext().getPackageName() + ".fileprovider", file);
+            uris.add(contentUri);
+        }
+
+        if (this._emailApps == null)
+        {
+            this._emailApps = new EmailApps(this.getContext());
+        }
+        List<Intent> templates = this._emailApps.Templates();
 
-        if (emailApps.isEmpty())
+        if (templates.isEmpty())
         {
             ret.put("success", false);
             ret.put("message", "No email app found");
@@ -70,30 +149,22 @@ public class SharePlugin extends Plugin
         {
             ArrayList<Intent> targetedIntents = new ArrayList<>();
 
-            for (ResolveInfo info : emailApps)
+            for (Intent template : templates)
             {
-                Intent targeted;
+                Intent targeted = new Intent(template);
                 if (uris.size() > 1)
                 {
-                    targeted = new Intent(Intent.ACTION_SEND_MULTIPLE);
+                    targeted.setAction(Intent.ACTION_SEND_MULTIPLE);
                     targeted.putParcelableArrayListExtra(Intent.EXTRA_STREAM, uris);
                 }
                 else if (!uris.isEmpty())
                 {
-                    targeted = new Intent(Intent.ACTION_SEND);
                     targeted.putExtra(Intent.EXTRA_STREAM, uris.get(0));
                 }
-                else
-                {
-                    targeted = new Intent(Intent.ACTION_SEND);
-                }
 
-                targeted.setType("*/*");
                 targeted.putExtra(Intent.EXTRA_EMAIL, new String[]{receiver});
                 targeted.putExtra(Intent.EXTRA_SUBJECT, subject);
                 targeted.putExtra(Intent.EXTRA_TEXT, body);
-                targeted.addFlags(Intent.FLAG_GRANT_READ_URI_PERMISSION);
-                targeted.setPackage(info.activityInfo.packageName);
 
                 targetedIntents.add(targeted);
             }
@@ -116,4 +187,99 @@ public class SharePlugin extends Plugin
         ret.put("success", true);
         call.resolve(ret);
     }
+
+    /**
+     * deletes shared archives older than a day, must run on a background thread
+     */
+    public static void DeleteOldArchives(@NonNull Context context)
+    {
+        File[] archives = new File(context.getCacheDir(), ArchiveDirectory).listFiles(File::isFile);
+        if (archives == null)
+        {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        int deleted = 0;
+        for (File archive : archives)
+        {
+            if (now - archive.lastModified() <= ArchiveMaxAge)
+            {
+                continue;
+            }
+            if (archive.delete())
+            {
+                deleted++;
+            }
+            else
+            {
+                Logger.Error(TAG, "Could not delete old archive '" + archive.getAbsolutePath() + "'");
+            }
+        }
+        if (deleted > 0)
+        {
+            final int deleted_archives = deleted;
+            Logger.Debug(TAG, () -> "Deleted " + deleted_archives + " old archive(s)");
+        }
+    }
+
+    /**
+     * streams the attachments into one zip archive in the export cache
+     * archives of earlier emails are kept, the email app may not have read them yet, see {@link #DeleteOldArchives}
+     *
+     * @param files   files to compress
+     * @param archive name of the archive
+     * @return archive, or null if it could not be created
+     */
+    private File bundleAttachments(List<File> files, String archive)
+    {
+        File dir = new File(this.getContext().getCacheDir(), ArchiveDirectory);
+        if (!dir.exists() && !dir.mkdirs())
+        {
+            Logger.Error(TAG, "Could not create directory '" + dir.getAbsolutePath() + "'");
+            return null;
+        }
+
+        String name = archive.replaceAll("[^A-Za-z0-9._-]", "_");
+        if (!name.toLowerCase(Locale.ROOT).endsWith(".zip"))
+        {
+            name += ".zip";
+        }
+        File zip = new File(dir, name);
+
+        HashSet<String> entries = new HashSet<>();
+        byte[] buffer = new byte[BufferSize];
+        try (ZipOutputStream out = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(zip), BufferSize)))
+        {
+            for (File file : files)
+            {
+                String entry = file.getName();
+                for (int i = 1; !entries.add(entry); i++)
+                {
+                    entry = i + "_" + file.getName();
+                }
+                out.putNextEntry(new ZipEntry(entry));
+                try (InputStream in = new FileInputStream(file))
+                {
+                    int read;
+                    while ((read = in.read(buffer)) > 0)
+                    {
+                        out.write(buffer, 0, read);
+                    }
+                }
+                out.closeEntry();
+            }
+        }
+        catch (Exception e)
+        {
+            Logger.Error(TAG, "Could not create archive '" + zip.getAbsolutePath() + "': ", e);
+            if (zip.exists() && !zip.delete())
+            {
+                Logger.Error(TAG, "Could not delete incomplete archive '" + zip.getAbsolutePath() + "'");
+            }
+            return null;
+        }
+
+        Logger.Debug(TAG, () -> "Bundled " + files.size() + " attachment(s) into '" + zip.getName() + "' (" + zip.length() + " bytes)");
+        return zip;
+    }
 }
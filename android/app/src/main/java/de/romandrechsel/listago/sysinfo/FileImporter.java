@@ -0,0 +1,265 @@
+package de.romandrechsel.listago.sysinfo;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.database.Cursor;
+import android.net.Uri;
+import android.provider.OpenableColumns;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.Locale;
+
+import de.romandrechsel.listago.logging.Logger;
+
+/**
+ * copies files, that were shared with the app, into the cache
+ * received files are named by the hash of their content, so sharing the same file twice is stored once
+ * copying blocks, so it must run on a background thread
+ */
+public class FileImporter
+{
+    public interface IProgressListener
+    {
+        void onProgress(@NonNull Uri uri, long copied, long total);
+    }
+
+    private static final String TAG = "FileImporter";
+    public static final String ReceivedDirectory = "received";
+    private static final int ChunkSize = 1024 * 1024;
+    private static final int HashBufferSize = 64 * 1024;
+    private static final String HashAlgorithm = "SHA-256";
+    private static final String TempPrefix = "import-";
+    private static final String TempSuffix = ".tmp";
+
+    @NonNull
+    private final ContentResolver _resolver;
+    @NonNull
+    private final File _receivedDir;
+
+    public FileImporter(@NonNull Context context)
+    {
+        this._resolver = context.getContentResolver();
+        this._receivedDir = new File(context.getCacheDir(), ReceivedDirectory);
+    }
+
+    /**
+     * copies a shared file into the received directory of the cache
+     * files are stored content-addressed by their sha-256 hash, the content is hashed while copying
+     * and the copy is discarded, if a file with the same content was already received
+     * if a received file has the same size, the shared file is hashed first without writing it, so a repeated share is not copied again
+     *
+     * @param uri      uri of the shared file
+     * @param listener listener for the copy progress, called after every chunk
+     * @return copied file, or null if the import failed
+     */
+    @Nullable
+    public File Import(@NonNull Uri uri, @Nullable IProgressListener listener)
+    {
+        if (uri.getPath() == null)
+        {
+            Logger.Error(TAG, "Failed to import file: file not found at '" + uri + "'");
+            return null;
+        }
+        if (!this._receivedDir.exists() && !this._receivedDir.mkdirs())
+        {
+            Logger.Error(TAG, "Failed to create directory '" + this._receivedDir.getAbsolutePath() + "'");
+            return null;
+        }
+
+        String name = new File(uri.getPath()).getName();
+        long total = this.querySize(uri);
+        File received = total >= 0 ? this.findReceived(uri, name, total) : null;
+        if (received != null)
+        {
+            Logger.Debug(TAG, () -> "Received file '" + name + "' is already in cache as '" + received.getName() + "', not copied again");
+            FileImporter.touch(received);
+            if (listener != null)
+            {
+                listener.onProgress(uri, total, total);
+            }
+            return received;
+        }
+
+        File tempFile = null;
+        try (InputStream inputStream = this._resolver.openInputStream(uri))
+        {
+            if (inputStream == null)
+            {
+                Logger.Error(TAG, "Received file stream, but could not open it: ", uri.toString());
+                return null;
+            }
+
+            tempFile = File.createTempFile(TempPrefix, TempSuffix, this._receivedDir);
+            MessageDigest digest = MessageDigest.getInstance(HashAlgorithm);
+            try (ReadableByteChannel source = Channels.newChannel(new DigestInputStream(inputStream, digest));
+                 FileOutputStream outputStream = new FileOutputStream(tempFile);
+                 FileChannel target = outputStream.getChannel())
+            {
+                long copied = 0;
+                long transferred;
+                while ((transferred = target.transferFrom(source, copied, ChunkSize)) > 0)
+                {
+                    copied += transferred;
+                    if (listener != null)
+                    {
+                        listener.onProgress(uri, copied, total);
+                    }
+                }
+            }
+
+            File destFile = new File(this._receivedDir, FileImporter.contentName(digest.digest(), name));
+            if (destFile.exists() && destFile.length() == tempFile.length())
+            {
+                Logger.Debug(TAG, () -> "Received file '" + name + "' is already in cache as '" + destFile.getName() + "'");
+                FileImporter.deleteTempFile(tempFile);
+                FileImporter.touch(destFile);
+                return destFile;
+            }
+            if (!tempFile.renameTo(destFile))
+            {
+                Logger.Error(TAG, "Failed to move received file to '" + destFile.getAbsolutePath() + "'");
+                FileImporter.deleteTempFile(tempFile);
+                return null;
+            }
+            return destFile;
+        }
+        catch (Exception e)
+        {
+            Logger.Error(TAG, "Failed to import file: " + uri, e);
+            FileImporter.deleteTempFile(tempFile);
+            return null;
+        }
+    }
+
+    /**
+     * looks for a received file with the same content, the shared file is only read and hashed, not written
+     * files are only hashed if a received file has the same size and extension
+     *
+     * @param uri  uri of the shared file
+     * @param name name of the shared file
+     * @param size size of the shared file
+     * @return received file with the same content, or null if there is none
+     */
+    @Nullable
+    private File findReceived(@NonNull Uri uri, @NonNull String name, long size)
+    {
+        String extension = FileImporter.extension(name);
+        File[] candidates = this._receivedDir.listFiles(file -> file.isFile() && file.length() == size && !FileImporter.IsTempFile(file) && file.getName().endsWith(extension));
+        if (candidates == null || candidates.length == 0)
+        {
+            return null;
+        }
+
+        try (InputStream inputStream = this._resolver.openInputStream(uri))
+        {
+            if (inputStream == null)
+            {
+                return null;
+            }
+            MessageDigest digest = MessageDigest.getInstance(HashAlgorithm);
+            byte[] buffer = new byte[HashBufferSize];
+            int read;
+            while ((read = inputStream.read(buffer)) >= 0)
+            {
+                digest.update(buffer, 0, read);
+            }
+            File received = new File(this._receivedDir, FileImporter.contentName(digest.digest(), name));
+            return received.isFile() && received.length() == size ? received : null;
+        }
+        catch (Exception e)
+        {
+            Logger.Debug(TAG, () -> "Could not hash shared file '" + name + "': " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * checks if a file in the received directory is an incomplete copy
+     */
+    public static boolean IsTempFile(@NonNull File file)
+    {
+        return file.getName().startsWith(TempPrefix) && file.getName().endsWith(TempSuffix);
+    }
+
+    /**
+     * creates the content-addressed name of a received file, the extension of the original file is kept
+     *
+     * @param hash         hash of the file content
+     * @param originalName name of the shared file
+     * @return file name in the received directory
+     */
+    @NonNull
+    private static String contentName(@NonNull byte[] hash, @NonNull String originalName)
+    {
+        StringBuilder name = new StringBuilder(hash.length * 2 + 8);
+        for (byte b : hash)
+        {
+            name.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        name.append(FileImporter.extension(originalName));
+        return name.toString();
+    }
+
+    /**
+     * @return lower case extension of a file name including the dot, or an empty string
+     */
+    @NonNull
+    private static String extension(@NonNull String name)
+    {
+        int dot = name.lastIndexOf('.');
+        if (dot > 0 && dot < name.length() - 1)
+        {
+            return name.substring(dot).toLowerCase(Locale.ROOT);
+        }
+        return "";
+    }
+
+    /**
+     * marks a received file as recently used for the cache eviction
+     */
+    private static void touch(@NonNull File file)
+    {
+        if (!file.setLastModified(System.currentTimeMillis()))
+        {
+            Logger.Debug(TAG, () -> "Could not update last modification of '" + file.getName() + "'");
+        }
+    }
+
+    private static void deleteTempFile(@Nullable File file)
+    {
+        if (file != null && file.exists() && !file.delete())
+        {
+            Logger.Error(TAG, "Could not delete incomplete file '" + file.getAbsolutePath() + "'");
+        }
+    }
+
+    /**
+     * gets the size of a shared file, if the provider knows it
+     *
+     * @return size in bytes, or -1 if unknown
+     */
+    private long querySize(@NonNull Uri uri)
+    {
+        try (Cursor cursor = this._resolver.query(uri, new String[]{OpenableColumns.SIZE}, null, null, null))
+        {
+            if (cursor != null && cursor.moveToFirst() && !cursor.isNull(0))
+            {
+                return cursor.getLong(0);
+            }
+        }
+        catch (Exception ignored)
+        {
+        }
+        return -1;
+    }
+}
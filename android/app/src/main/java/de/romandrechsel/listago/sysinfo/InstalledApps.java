@@ -0,0 +1,169 @@
+package de.romandrechsel.listago.sysinfo;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.pm.PackageManager;
+import android.net.Uri;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.content.ContextCompat;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import de.romandrechsel.listago.logging.Logger;
+
+/**
+ * checks if apps are installed and caches the results
+ * the cache entry of a package is dropped, when the package is installed, updated or removed
+ * other caches of package data can listen to the same package changes, so only one receiver is registered
+ */
+public class InstalledApps
+{
+    public interface IPackageListener
+    {
+        /**
+         * @param packageName package, that was installed, updated or removed, or null if unknown
+         */
+        void onPackageChanged(@Nullable String packageName);
+    }
+
+    private static final String TAG = "InstalledApps";
+    private static final CopyOnWriteArrayList<IPackageListener> PackageListeners = new CopyOnWriteArrayList<>();
+    private static final AtomicInteger Receivers = new AtomicInteger(0);
+
+    @NonNull
+    private final Context _context;
+    @NonNull
+    private final ConcurrentHashMap<String, Boolean> _installed = new ConcurrentHashMap<>();
+    private boolean _registered = false;
+
+    private final BroadcastReceiver _packageReceiver = new BroadcastReceiver()
+    {
+        @Override
+        public void onReceive(Context context, Intent intent)
+        {
+            Uri data = intent.getData();
+            String packageName = data != null ? data.getSchemeSpecificPart() : null;
+            if (packageName != null)
+            {
+                if (InstalledApps.this._installed.remove(packageName) != null)
+                {
+                    Logger.Debug(TAG, () -> "Package '" + packageName + "' changed (" + intent.getAction() + "), cached state dropped");
+                }
+            }
+            else
+            {
+                InstalledApps.this._installed.clear();
+            }
+            for (IPackageListener listener : PackageListeners)
+            {
+                listener.onPackageChanged(packageName);
+            }
+        }
+    };
+
+    public InstalledApps(@NonNull Context context)
+    {
+        this._context = context.getApplicationContext();
+    }
+
+    /**
+     * starts listening for package changes, until then nothing is cached
+     */
+    public synchronized void Register()
+    {
+        if (this._registered)
+        {
+            return;
+        }
+        IntentFilter filter = new IntentFilter();
+        filter.addAction(Intent.ACTION_PACKAGE_ADDED);
+        filter.addAction(Intent.ACTION_PACKAGE_REMOVED);
+        filter.addAction(Intent.ACTION_PACKAGE_REPLACED);
+        filter.addAction(Intent.ACTION_PACKAGE_CHANGED);
+        filter.addDataScheme("package");
+        ContextCompat.registerReceiver(this._context, this._packageReceiver, filter, ContextCompat.RECEIVER_NOT_EXPORTED);
+        this._registered = true;
+        Receivers.incrementAndGet();
+    }
+
+    public synchronized void Unregister()
+    {
+        if (!this._registered)
+        {
+            return;
+        }
+        try
+        {
+            this._context.unregisterReceiver(this._packageReceiver);
+        }
+        catch (IllegalArgumentException ignored)
+        {
+        }
+        this._registered = false;
+        Receivers.decrementAndGet();
+        this._installed.clear();
+        for (IPackageListener listener : PackageListeners)
+        {
+            listener.onPackageChanged(null);
+        }
+    }
+
+    /**
+     * adds a listener for package changes, it is only called while a receiver is registered
+     */
+    public static void AddPackageListener(@NonNull IPackageListener listener)
+    {
+        PackageListeners.addIfAbsent(listener);
+    }
+
+    public static void RemovePackageListener(@NonNull IPackageListener listener)
+    {
+        PackageListeners.remove(listener);
+    }
+
+    /**
+     * checks if package changes are received, otherwise package data must not be cached
+     */
+    public static boolean IsListening()
+    {
+        return Receivers.get() > 0;
+    }
+
+    /**
+     * checks if an app is installed
+     *
+     * @param packageName package name of the app
+     * @return true, if the app is installed and visible to this app
+     */
+    public boolean IsInstalled(@NonNull String packageName)
+    {
+        Boolean cached = this._installed.get(packageName);
+        if (cached != null)
+        {
+            return cached;
+        }
+
+        boolean installed;
+        try
+        {
+            // no flags, only the existence of the package is needed
+            this._context.getPackageManager().getPackageInfo(packageName, 0);
+            installed = true;
+        }
+        catch (PackageManager.NameNotFoundException e)
+        {
+            installed = false;
+        }
+        if (this._registered)
+        {
+            this._installed.put(packageName, installed);
+        }
+        return installed;
+    }
+}
@@ -0,0 +1,189 @@
+package de.romandrechsel.listago.sysinfo;
+
+import android.util.JsonReader;
+import android.util.JsonToken;
+
+import androidx.annotation.NonNull;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * streaming parser for the json list files of the backup, the file is read token by token and the items
+ * are passed on in batches, so only one batch is held in memory at any time
+ */
+public class ListFileParser
+{
+    public interface IBatchListener
+    {
+        void onItems(@NonNull JSArray items);
+    }
+
+    public static class ParseResult
+    {
+        /**
+         * all list properties except the items
+         */
+        @NonNull
+        public final JSObject List;
+        /**
+         * the last items, that did not fill a batch
+         */
+        @NonNull
+        public final JSArray Rest;
+        public final int Total;
+
+        private ParseResult(@NonNull JSObject list, @NonNull JSArray rest, int total)
+        {
+            this.List = list;
+            this.Rest = rest;
+            this.Total = total;
+        }
+
+        /**
+         * @return the terminal batch with the last items, the list properties and the total number of items
+         */
+        @NonNull
+        public JSObject toJSObject()
+        {
+            JSObject ret = new JSObject();
+            ret.put("done", true);
+            ret.put("items", this.Rest);
+            ret.put("list", this.List);
+            ret.put("total", this.Total);
+            return ret;
+        }
+    }
+
+    public static final int DefaultBatchSize = 100;
+    private static final String ItemsProperty = "items";
+
+    private final int _batchSize;
+    @NonNull
+    private final IBatchListener _listener;
+    @NonNull
+    private JSArray _batch = new JSArray();
+    private int _count = 0;
+
+    public ListFileParser(int batchSize, @NonNull IBatchListener listener)
+    {
+        this._batchSize = batchSize > 0 ? batchSize : DefaultBatchSize;
+        this._listener = listener;
+    }
+
+    /**
+     * parses a list file, full batches of items are passed to the listener while reading
+     *
+     * @param file list file
+     * @return list properties, the remaining items and the total number of items
+     * @throws IOException if the file could not be read or is malformed
+     */
+    @NonNull
+    public ParseResult Parse(@NonNull File file) throws IOException
+    {
+        this._batch = new JSArray();
+        this._count = 0;
+
+        JSObject list;
+        try (Reader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)))
+        {
+            list = this.parseJson(reader);
+        }
+        catch (JSONException | IllegalStateException | NumberFormatException e)
+        {
+            throw new IOException("Malformed list file '" + file.getName() + "'", e);
+        }
+        JSArray rest = this._batch;
+        this._batch = new JSArray();
+        return new ParseResult(list, rest, this._count);
+    }
+
+    @NonNull
+    private JSObject parseJson(@NonNull Reader reader) throws IOException, JSONException
+    {
+        JSObject list = new JSObject();
+        JsonReader json = new JsonReader(reader);
+        json.beginObject();
+        while (json.hasNext())
+        {
+            String name = json.nextName();
+            if (name.equals(ItemsProperty) && json.peek() == JsonToken.BEGIN_ARRAY)
+            {
+                json.beginArray();
+                while (json.hasNext())
+                {
+                    this.add(ListFileParser.readValue(json));
+                }
+                json.endArray();
+            }
+            else
+            {
+                list.put(name, ListFileParser.readValue(json));
+            }
+        }
+        json.endObject();
+        return list;
+    }
+
+    private void add(@NonNull Object item)
+    {
+        this._batch.put(item);
+        this._count++;
+        if (this._batch.length() >= this._batchSize)
+        {
+            this._listener.onItems(this._batch);
+            this._batch = new JSArray();
+        }
+    }
+
+    @NonNull
+    private static Object readValue(@NonNull JsonReader json) throws IOException, JSONException
+    {
+        switch (json.peek())
+        {
+            case BEGIN_OBJECT:
+                JSObject obj = new JSObject();
+                json.beginObject();
+                while (json.hasNext())
+                {
+                    obj.put(json.nextName(), ListFileParser.readValue(json));
+                }
+                json.endObject();
+                return obj;
+            case BEGIN_ARRAY:
+                JSArray arr = new JSArray();
+                json.beginArray();
+                while (json.hasNext())
+                {
+                    arr.put(ListFileParser.readValue(json));
+                }
+                json.endArray();
+                return arr;
+            case BOOLEAN:
+                return json.nextBoolean();
+            case NUMBER:
+                String number = json.nextString();
+                if (number.indexOf('.') < 0 && number.indexOf('e') < 0 && number.indexOf('E') < 0)
+                {
+                    return Long.parseLong(number);
+                }
+                return Double.parseDouble(number);
+            case NULL:
+                json.nextNull();
+                return JSONObject.NULL;
+            default:
+                return json.nextString();
+        }
+    }
+}
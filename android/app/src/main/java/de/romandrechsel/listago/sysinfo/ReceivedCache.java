@@ -0,0 +1,112 @@
+package de.romandrechsel.listago.sysinfo;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import de.romandrechsel.listago.logging.Logger;
+
+/**
+ * keeps the directory of received files below a size quota
+ * the app deletes a received file once it was copied for the import, so the cache only holds files
+ * of imports, that were not finished yet or failed
+ * the last modification of a file is its last access, files are evicted least recently used first
+ * trimming touches the file system, so it must run on a background thread
+ */
+public class ReceivedCache
+{
+    private static final String TAG = "ReceivedCache";
+
+    /**
+     * default quota in megabytes, can be changed by the option receivedCacheQuota of the SysInfo plugin
+     */
+    public static final int DefaultQuota = 50;
+    /**
+     * files accessed more recently are never evicted, as the app may not have imported them yet
+     */
+    private static final long MinAge = 5 * 60 * 1000;
+    /**
+     * incomplete copies older than this are left over from a failed import
+     */
+    private static final long TempFileAge = 60 * 60 * 1000;
+
+    @NonNull
+    private final File _directory;
+    private final long _quota;
+
+    /**
+     * @param quota quota in megabytes
+     */
+    public ReceivedCache(@NonNull Context context, int quota)
+    {
+        this._directory = new File(context.getCacheDir(), FileImporter.ReceivedDirectory);
+        this._quota = (quota > 0 ? quota : DefaultQuota) * 1024L * 1024L;
+    }
+
+    /**
+     * evicts least recently used files until the directory is below the quota
+     *
+     * @return number of evicted bytes
+     */
+    public synchronized long Trim()
+    {
+        File[] files = this._directory.listFiles(File::isFile);
+        if (files == null || files.length == 0)
+        {
+            return 0;
+        }
+
+        long now = System.currentTimeMillis();
+        long[] modified = new long[files.length];
+        long size = 0;
+        for (int i = 0; i < files.length; i++)
+        {
+            modified[i] = files[i].lastModified();
+            size += files[i].length();
+        }
+
+        Integer[] order = new Integer[files.length];
+        for (int i = 0; i < order.length; i++)
+        {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingLong(i -> modified[i]));
+
+        long evicted = 0;
+        int count = 0;
+        for (int i : order)
+        {
+            File file = files[i];
+            long age = now - modified[i];
+            boolean stale = FileImporter.IsTempFile(file) && age > TempFileAge;
+            if (!stale && (size - evicted <= this._quota || age < MinAge))
+            {
+                continue;
+            }
+
+            long length = file.length();
+            if (file.delete())
+            {
+                evicted += length;
+                count++;
+            }
+            else
+            {
+                Logger.Error(TAG, "Could not evict received file '" + file.getAbsolutePath() + "'");
+            }
+        }
+
+        if (count > 0)
+        {
+            final int evicted_files = count;
+            final long evicted_bytes = evicted;
+            final long remaining = size - evicted;
+            Logger.Debug(TAG, () -> "Evicted " + evicted_files + " received file(s) with " + evicted_bytes + " bytes, " + remaining + " bytes remaining");
+        }
+        return evicted;
+    }
+}
@@ -0,0 +1,200 @@
+package de.romandrechsel.listago.sysinfo;
+
+import android.content.Context;
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.getcapacitor.JSObject;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.HashMap;
+
+import de.romandrechsel.listago.logging.Logger;
+
+/**
+ * computes the disk usage of the app data, split into areas like webview data, databases and logs
+ * the scanned directory tree is cached, a directory is only listed again if its modification time changed,
+ * so a repeated analysis only costs one stat per directory
+ * scanning touches the file system, so it must run on a background thread
+ */
+public class StorageAnalyzer
+{
+    private static class Node
+    {
+        long Modified;
+        long Scanned;
+        long FilesSize = 0;
+        int Files = 0;
+        long TotalSize = 0;
+        int TotalFiles = 0;
+        @NonNull
+        HashMap<String, Node> Children = new HashMap<>();
+    }
+
+    /**
+     * directories, whose entries did not change, are still listed again after this time, as files may have grown
+     */
+    private static final long MaxAge = 10 * 60 * 1000;
+
+    @NonNull
+    private final File _dataDir;
+    @NonNull
+    private final File _filesDir;
+    @NonNull
+    private final File _cacheDir;
+    @Nullable
+    private Node _root = null;
+    private int _listed = 0;
+
+    public StorageAnalyzer(@NonNull Context context)
+    {
+        this._filesDir = context.getFilesDir();
+        this._cacheDir = context.getCacheDir();
+        File dataDir = this._filesDir.getParentFile();
+        this._dataDir = dataDir != null ? dataDir : this._filesDir;
+    }
+
+    /**
+     * analyses the storage usage, only changed directories are listed again
+     *
+     * @param force true, if all directories should be listed again
+     * @return size and number of files per area and in total
+     */
+    @NonNull
+    public synchronized JSObject Analyse(boolean force)
+    {
+        long start = SystemClock.elapsedRealtime();
+        this._listed = 0;
+        this._root = this.scan(this._dataDir, force ? null : this._root, System.currentTimeMillis());
+
+        File logFile = new File(this._filesDir, Logger.LogFileName);
+        File received = new File(this._cacheDir, FileImporter.ReceivedDirectory);
+        File logs = new File(this._filesDir, "logs");
+
+        JSObject areas = new JSObject();
+        areas.put("webview", this.area(this.find(new File(this._dataDir, "app_webview")), null, 0));
+        areas.put("databases", this.area(this.find(new File(this._dataDir, "databases")), null, 0));
+        areas.put("received", this.area(this.find(received), null, 0));
+        areas.put("logs", this.area(this.find(logs), null, logFile.length()));
+        areas.put("cache", this.area(this.find(this._cacheDir), this.find(received), 0));
+        areas.put("files", this.area(this.find(this._filesDir), this.find(logs), -logFile.length()));
+
+        JSObject ret = new JSObject();
+        ret.put("areas", areas);
+        ret.put("total", this.area(this._root, null, 0));
+        ret.put("listed", this._listed);
+        ret.put("duration", SystemClock.elapsedRealtime() - start);
+        return ret;
+    }
+
+    @NonNull
+    private Node scan(@NonNull File dir, @Nullable Node cached, long now)
+    {
+        long modified = dir.lastModified();
+        Node node;
+        if (cached != null && cached.Modified == modified && now - cached.Scanned < MaxAge)
+        {
+            // the entries of the directory didn't change, only the subdirectories have to be checked
+            node = cached;
+            for (String name : node.Children.keySet())
+            {
+                node.Children.put(name, this.scan(new File(dir, name), node.Children.get(name), now));
+            }
+        }
+        else
+        {
+            node = new Node();
+            node.Modified = modified;
+            node.Scanned = now;
+            this._listed++;
+            File[] entries = dir.listFiles();
+            if (entries != null)
+            {
+                for (File entry : entries)
+                {
+                    if (Files.isSymbolicLink(entry.toPath()))
+                    {
+                        continue;
+                    }
+                    if (entry.isDirectory())
+                    {
+                        node.Children.put(entry.getName(), this.scan(entry, cached != null ? cached.Children.get(entry.getName()) : null, now));
+                    }
+                    else
+                    {
+                        node.FilesSize += entry.length();
+                        node.Files++;
+                    }
+                }
+            }
+        }
+
+        node.TotalSize = node.FilesSize;
+        node.TotalFiles = node.Files;
+        for (Node child : node.Children.values())
+        {
+            node.TotalSize += child.TotalSize;
+            node.TotalFiles += child.TotalFiles;
+        }
+        return node;
+    }
+
+    /**
+     * finds the node of a directory in the scanned tree
+     */
+    @Nullable
+    private Node find(@NonNull File dir)
+    {
+        String root = this._dataDir.getAbsolutePath();
+        String path = dir.getAbsolutePath();
+        if (this._root == null || !path.startsWith(root))
+        {
+            return null;
+        }
+
+        Node node = this._root;
+        for (String name : path.substring(root.length()).split("/"))
+        {
+            if (name.isEmpty())
+            {
+                continue;
+            }
+            node = node.Children.get(name);
+            if (node == null)
+            {
+                return null;
+            }
+        }
+        return node;
+    }
+
+    /**
+     * @param node    directory of the area
+     * @param exclude subdirectory, that is counted as its own area
+     * @param extra   size of single files, that belong to the area
+     */
+    @NonNull
+    private JSObject area(@Nullable Node node, @Nullable Node exclude, long extra)
+    {
+        long size = extra;
+        int files = extra > 0 ? 1 : extra < 0 ? -1 : 0;
+        if (node != null)
+        {
+            size += node.TotalSize;
+            files += node.TotalFiles;
+        }
+        if (exclude != null)
+        {
+            size -= exclude.TotalSize;
+            files -= exclude.TotalFiles;
+        }
+
+        JSObject ret = new JSObject();
+        ret.put("size", Math.max(size, 0));
+        ret.put("files", Math.max(files, 0));
+        return ret;
+    }
+}
@@ -2,7 +2,6 @@ package de.romandrechsel.listago.sysinfo;
 
 import android.content.Context;
 import android.content.Intent;
-import android.content.pm.PackageManager;
 import android.net.Uri;
 import android.os.Bundle;
 import android.util.DisplayMetrics;
@@ -10,6 +9,7 @@ import android.util.Log;
 
 import androidx.annotation.NonNull;
 
+import com.getcapacitor.JSArray;
 import com.getcapacitor.JSObject;
 import com.getcapacitor.Plugin;
 import com.getcapacitor.PluginCall;
@@ -17,15 +17,19 @@ import com.getcapacitor.PluginMethod;
 import com.getcapacitor.annotation.CapacitorPlugin;
 import com.google.gson.Gson;
 
+import org.json.JSONException;
+
 import java.io.File;
-import java.io.FileOutputStream;
-import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import de.romandrechsel.listago.logging.Logger;
+import de.romandrechsel.listago.logging.StartupTracer;
 
 @CapacitorPlugin(name = "SysInfo")
 public class SysInfoPlugin extends Plugin
@@ -43,11 +47,37 @@ public class SysInfoPlugin extends Plugin
     }
 
     private static final String TAG = "SysInfoPlugin";
+    private static final String AppLogTag = "App";
 
     private Boolean _isNightMode = null;
     private Boolean _appIsReady = false;
     private Intent _pendingIntent = null;
     private ArrayList<InitialAction> _initActions = null;
+    private final ExecutorService _importExecutor = Executors.newSingleThreadExecutor();
+    private FileImporter _fileImporter = null;
+    private ReceivedCache _receivedCache = null;
+    private InstalledApps _installedApps = null;
+    private final ExecutorService _storageExecutor = Executors.newSingleThreadExecutor();
+    private StorageAnalyzer _storageAnalyzer = null;
+
+    @Override
+    public void load()
+    {
+        StartupTracer.Begin("load:SysInfo");
+        this._installedApps = new InstalledApps(this.getContext());
+        this._installedApps.Register();
+        StartupTracer.End("load:SysInfo");
+    }
+
+    @Override
+    protected void handleOnDestroy()
+    {
+        if (this._installedApps != null)
+        {
+            this._installedApps.Unregister();
+        }
+        super.handleOnDestroy();
+    }
 
     @PluginMethod
     public void DisplayDensity(PluginCall call)
@@ -79,53 +109,152 @@ public class SysInfoPlugin extends Plugin
             {
                 case "d":
                     Log.d(TAG, message);
+                    Logger.AddToIndex(Logger.Level.Debug, AppLogTag, message);
                     break;
                 case "i":
                     Log.w(TAG, message);
+                    Logger.AddToIndex(Logger.Level.Important, AppLogTag, message);
                     break;
                 case "e":
                     Log.e(TAG, message);
+                    Logger.AddToIndex(Logger.Level.Error, AppLogTag, message);
                     break;
                 case "n":
                 default:
                     Log.i(TAG, message);
+                    Logger.AddToIndex(Logger.Level.Notice, AppLogTag, message);
                     break;
             }
         }
     }
 
     @PluginMethod
-    public void AppInstalled(PluginCall call)
+    public void QueryLogs(PluginCall call)
     {
-        String packageName = call.getString("packageName", null);
-        Boolean silent = call.getBoolean("silent", false);
-        if (silent == null)
+        Integer level = call.getInt("level", Logger.Level.Debug.Value);
+        Long from = call.getLong("from", 0L);
+        Long to = call.getLong("to", Long.MAX_VALUE);
+        Integer offset = call.getInt("offset", 0);
+        Integer limit = call.getInt("limit", 100);
+
+        List<String> tags = null;
+        JSArray tags_array = call.getArray("tags", null);
+        if (tags_array != null)
         {
-            silent = false;
+            try
+            {
+                tags = tags_array.toList();
+            }
+            catch (JSONException ex)
+            {
+                call.reject("Invalid tags: " + ex.getMessage());
+                return;
+            }
         }
 
-        boolean installed = false;
-        if (packageName != null)
+        call.resolve(Logger.QueryLogs(
+            Logger.Level.FromValue(level != null ? level : Logger.Level.Debug.Value),
+            tags,
+            from != null ? from : 0L,
+            to != null ? to : Long.MAX_VALUE,
+            offset != null ? Math.max(offset, 0) : 0,
+            limit != null ? Math.max(limit, 0) : 100));
+    }
+
+    @PluginMethod
+    public void SetLogLevel(PluginCall call)
+    {
+        Integer level = call.getInt("level", null);
+        if (level != null)
         {
-            PackageManager pm = this.getContext().getPackageManager();
+            Logger.SetLevel(level);
+        }
+        call.resolve();
+    }
+
+    @PluginMethod
+    public void NativeLogs(PluginCall call)
+    {
+        JSObject ret = new JSObject();
+        ret.put("logs", Logger.ReadLogFile());
+        call.resolve(ret);
+    }
+
+    @PluginMethod
+    public void ClearNativeLogs(PluginCall call)
+    {
+        Logger.ClearLogFile();
+        call.resolve();
+    }
+
+    @PluginMethod
+    public void StorageUsage(PluginCall call)
+    {
+        Boolean force = call.getBoolean("force", false);
+        this._storageExecutor.execute(() ->
+        {
+            if (this._storageAnalyzer == null)
+            {
+                this._storageAnalyzer = new StorageAnalyzer(this.getContext());
+            }
             try
             {
-                pm.getPackageInfo(packageName, PackageManager.GET_ACTIVITIES);
-                installed = true;
-                if (!silent)
-                {
-                    Logger.Debug(TAG, "App '" + packageName + "' is installed");
-                }
+                call.resolve(this._storageAnalyzer.Analyse(force != null && force));
             }
-            catch (PackageManager.NameNotFoundException e)
+            catch (Exception e)
             {
-                if (!silent)
-                {
-                    Logger.Debug(TAG, "App '" + packageName + "' is NOT installed");
-                }
+                Logger.Error(TAG, "Could not analyse storage usage: ", e);
+                call.reject("Could not analyse storage usage: " + e.getMessage());
             }
+        });
+    }
+
+    @PluginMethod
+    public void ParseListFile(PluginCall call)
+    {
+        String path = call.getString("path", null);
+        String id = call.getString("id", null);
+        Integer batch = call.getInt("batch", ListFileParser.DefaultBatchSize);
+        if (path == null || id == null)
+        {
+            call.reject("Missing path or id");
+            return;
         }
 
+        File file = new File(path.startsWith("file://") ? Uri.parse(path).getPath() : path);
+        this._importExecutor.execute(() ->
+        {
+            ListFileParser parser = new ListFileParser(batch != null ? batch : ListFileParser.DefaultBatchSize, items ->
+            {
+                JSObject data = new JSObject();
+                data.put("id", id);
+                data.put("items", items);
+                this.notifyListeners("LISTFILE", data);
+            });
+            try
+            {
+                // the terminal batch is sent as event, events are not ordered with the result of the call
+                JSObject done = parser.Parse(file).toJSObject();
+                done.put("id", id);
+                this.notifyListeners("LISTFILE", done);
+                call.resolve();
+            }
+            catch (Exception e)
+            {
+                Logger.Error(TAG, "Could not parse list file '" + file.getAbsolutePath() + "': ", e);
+                call.reject("Could not parse list file: " + e.getMessage());
+            }
+        });
+    }
+
+    @PluginMethod
+    public void AppInstalled(PluginCall call)
+    {
+        String packageName = call.getString("packageName", null);
+        Boolean silent = call.getBoolean("silent", false);
+
+        boolean installed = packageName != null && this.isAppInstalled(packageName, silent == null || !silent);
+
         JSObject res = new JSObject();
         res.put("installed", installed);
         call.resolve(res);
@@ -134,6 +263,7 @@ public class SysInfoPlugin extends Plugin
     @PluginMethod
     public void AppIsReady(PluginCall call)
     {
+        JSObject startup = StartupTracer.Finish();
         this._appIsReady = true;
         if (this._pendingIntent != null)
         {
@@ -159,6 +289,10 @@ public class SysInfoPlugin extends Plugin
             ret.put("actions", actions);
             this._initActions = null;
         }
+        if (startup != null)
+        {
+            ret.put("startup", startup);
+        }
         call.resolve(ret);
     }
 
@@ -193,60 +327,19 @@ public class SysInfoPlugin extends Plugin
         JSObject data = new JSObject();
         data.put("action", intent.getAction());
         data.put("type", intent.getType());
+        Uri streamUri = null;
+        JSObject extrasJson = new JSObject();
         Bundle extras = intent.getExtras();
         if (extras != null)
         {
-            JSObject extrasJson = new JSObject();
             Set<String> keys = extras.keySet();
             for (String key : keys)
             {
                 Object value = extras.get(key);
-                if (key.equals("android.intent.extra.STREAM"))
+                if (key.equals(Intent.EXTRA_STREAM))
                 {
-                    Uri fileUri = intent.getParcelableExtra(Intent.EXTRA_STREAM);
-                    if (fileUri != null && fileUri.getPath() != null)
-                    {
-                        try
-                        {
-                            Context context = this.getContext();
-                            InputStream inputStream = context.getContentResolver().openInputStream(fileUri);
-                            if (inputStream == null)
-                            {
-                                Logger.Error(TAG, "Received file stream, but could not open it: ", fileUri.toString());
-                                continue;
-                            }
-
-                            File cacheDir = context.getCacheDir();
-                            File receivedDir = new File(cacheDir, "received");
-                            if (!receivedDir.exists())
-                            {
-                                if (!receivedDir.mkdirs())
-                                {
-                                    Logger.Error(TAG, "Failed to create directory '" + receivedDir.getAbsolutePath() + "'");
-                                    continue;
-                                }
-                            }
-                            String fileName = new File(fileUri.getPath()).getName();
-                            File destFile = new File(receivedDir, fileName);
-
-                            FileOutputStream outputStream = new FileOutputStream(destFile);
-                            byte[] buffer = new byte[1024];
-                            int len;
-                            while ((len = inputStream.read(buffer)) > 0)
-                            {
-                                outputStream.write(buffer, 0, len);
-                            }
-
-                            inputStream.close();
-                            outputStream.close();
-                            extrasJson.put("android.intent.extra.STREAM", destFile.getAbsolutePath());
-                        }
-                        catch (Exception e)
-                        {
-                            Logger.Error(TAG, "Failed to import file: " + fileUri, e);
-                        }
-                    }
-                    else
+                    streamUri = intent.getParcelableExtra(Intent.EXTRA_STREAM);
+                    if (streamUri == null)
                     {
                         Logger.Error(TAG, "Failed to import file: file not found at '" + value + "'");
                     }
@@ -262,9 +355,83 @@ public class SysInfoPlugin extends Plugin
             }
             data.put("extras", extrasJson);
         }
+
+        if (streamUri == null)
+        {
+            this.notifyListeners("INTENT", data);
+            return;
+        }
+
+        // the intent is passed to the app, after the shared file was copied in the background
+        Uri uri = streamUri;
+        this._importExecutor.execute(() ->
+        {
+            File file = this.getFileImporter().Import(uri, this::notifyImportProgress);
+            if (file != null)
+            {
+                extrasJson.put(Intent.EXTRA_STREAM, file.getAbsolutePath());
+            }
+            this.notifyListeners("INTENT", data);
+            this.getReceivedCache().Trim();
+        });
+    }
+
+    private void notifyImportProgress(@NonNull Uri uri, long copied, long total)
+    {
+        JSObject progress = new JSObject();
+        progress.put("uri", uri.toString());
+        progress.put("copied", copied);
+        if (total >= 0)
+        {
+            progress.put("total", total);
+        }
+        JSObject data = new JSObject();
+        data.put("progress", progress);
         this.notifyListeners("INTENT", data);
     }
 
+    private boolean isAppInstalled(@NonNull String packageName, boolean log)
+    {
+        if (this._installedApps == null)
+        {
+            this._installedApps = new InstalledApps(this.getContext());
+        }
+        boolean installed = this._installedApps.IsInstalled(packageName);
+        if (log)
+        {
+            Logger.Debug(TAG, () -> "App '" + packageName + "' is " + (installed ? "installed" : "NOT installed"));
+        }
+        return installed;
+    }
+
+    @NonNull
+    private FileImporter getFileImporter()
+    {
+        if (this._fileImporter == null)
+        {
+            this._fileImporter = new FileImporter(this.getContext());
+        }
+        return this._fileImporter;
+    }
+
+    /**
+     * removes received files above the quota and left over incomplete copies, must run on a background thread
+     */
+    public void TrimReceivedCache()
+    {
+        this.getReceivedCache().Trim();
+    }
+
+    @NonNull
+    private synchronized ReceivedCache getReceivedCache()
+    {
+        if (this._receivedCache == null)
+        {
+            this._receivedCache = new ReceivedCache(this.getContext(), this.getConfig().getInt("receivedCacheQuota", ReceivedCache.DefaultQuota));
+        }
+        return this._receivedCache;
+    }
+
     public void InitialActionDone(InitialAction action)
     {
         if (this._appIsReady)
@@ -3,24 +3,44 @@ package de.romandrechsel.listago.utils;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import com.getcapacitor.JSObject;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonPrimitive;
 
 import org.jetbrains.annotations.NotNull;
+import org.json.JSONArray;
+import org.json.JSONObject;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
-import de.romandrechsel.listago.garmin.DeviceMessage;
 import de.romandrechsel.listago.garmin.DeviceMessageSerializeException;
 import de.romandrechsel.listago.logging.Logger;
 
 public class DeviceUtils {
     private static final String TAG = "DeviceUtil";
 
+    /*
+     * ConnectIQ serializes a message as a string table followed by a data section,
+     * each section starts with a 4 byte magic number and a 4 byte length.
+     * Strings are stored with a 2 byte length prefix and a null terminator,
+     * every array and array element takes a 1 byte type tag and a 4 byte value.
+     */
+    private static final int WireSectionHeaders = 2 * (4 + 4);
+    private static final int WireArrayOverhead = 1 + 4;
+    private static final int WireElementOverhead = 1 + 4;
+    private static final int WireStringOverhead = 2 + 1;
+
+    /**
+     * serializes an object to the string array format the watch app expects
+     *
+     * @param obj gson tree, org.json structure from the bridge, string or list
+     * @return array of strings, objects are flattened to key=value entries
+     */
     @NonNull
     public static ArrayList<String> SerializeToStringArray(@NonNull Object obj) {
         ArrayList<String> ret = new ArrayList<>();
@@ -43,6 +63,32 @@ public class DeviceUtils {
                     error_occured = true;
                 }
             }
+        } else if (obj instanceof JSONArray arr) {
+            for (int i = 0; i < arr.length(); i++) {
+                Object val = arr.opt(i);
+                if (val != null && val != JSONObject.NULL) {
+                    try {
+                        ret.add(DeviceUtils.MakeString(val));
+                    } catch (DeviceMessageSerializeException ex) {
+                        error_occured = true;
+                        Logger.Error(TAG, ex.getMessage());
+                    }
+                }
+            }
+        } else if (obj instanceof JSONObject json) {
+            Iterator<String> keys = json.keys();
+            while (keys.hasNext()) {
+                String key = keys.next();
+                try {
+                    var val = DeviceUtils.MakeString(json.opt(key));
+                    if (!key.isEmpty()) {
+                        ret.add(key + "=" + val);
+                    }
+                } catch (DeviceMessageSerializeException ex) {
+                    Logger.Error(TAG, ex.getMessage());
+                    error_occured = true;
+                }
+            }
         } else if (obj instanceof JsonPrimitive prim) {
             ret.add(prim.getAsString());
         } else if (obj.getClass().isPrimitive()) {
@@ -68,36 +114,104 @@ public class DeviceUtils {
         return ret;
     }
 
-    @Nullable
-    public static DeviceMessage DeserializeStringArray(Object obj) {
-        DeviceMessage msg = new DeviceMessage();
-        if (obj instanceof ArrayList<?> arr) {
-            for (Object arr_obj : arr) {
-                try {
-                    String item = String.valueOf(arr_obj);
-                    msg.Size += item.length() * 2;
-
-                    String[] split = item.split("=", 2);
-                    if (split.length == 1) {
-                        msg.Message.put(split[0], null);
-                    } else {
-                        msg.Message.put(split[0], split[1]);
-                    }
-                } catch (Exception ex) {
-                    Logger.Error(TAG, "Could not deserialize " + arr_obj.getClass(), arr_obj);
-                    return null;
+    /**
+     * decodes a received string array of key=value entries directly into a json object
+     * entries without a '=' carry no value and are skipped
+     *
+     * @param obj    received data, expected to be a list of strings
+     * @param target json object to write the entries into
+     * @return number of received bytes
+     */
+    public static int DecodeStringArray(@Nullable Object obj, @NonNull JSObject target) {
+        return DeviceUtils.DecodeStringArray(obj, target, null);
+    }
+
+    /**
+     * decodes a received string array of key=value entries directly into a json object
+     * entries without a '=' carry no value and are skipped, for duplicate keys the last entry is used
+     *
+     * @param obj        received data, expected to be a list of strings
+     * @param target     json object to write the entries into
+     * @param dictionary negotiated key dictionary, or null if the keys are not tokenized
+     * @return number of received bytes
+     */
+    public static int DecodeStringArray(@Nullable Object obj, @NonNull JSObject target, @Nullable KeyDictionary dictionary) {
+        int size = 0;
+        if (obj instanceof List<?> arr) {
+            size += WireSectionHeaders + WireArrayOverhead;
+            for (int i = 0, count = arr.size(); i < count; i++) {
+                Object arr_obj = arr.get(i);
+                String item = arr_obj instanceof String str ? str : String.valueOf(arr_obj);
+                size += DeviceUtils.WireSize(item);
+
+                int separator = item.indexOf('=');
+                if (separator >= 0) {
+                    String key = dictionary != null ? dictionary.DecodeKey(item, separator) : item.substring(0, separator);
+                    target.put(key, item.substring(separator + 1));
                 }
             }
-        } else {
+        }
+        return size;
+    }
+
+    /**
+     * replaces the keys of all entries by their dictionary tokens
+     *
+     * @param data       string array to send, is modified in place
+     * @param dictionary negotiated key dictionary
+     */
+    public static void EncodeKeys(@NonNull List<String> data, @NonNull KeyDictionary dictionary) {
+        for (int i = 0, count = data.size(); i < count; i++) {
+            data.set(i, dictionary.Encode(data.get(i)));
+        }
+    }
 
+    /**
+     * calculates the number of bytes a string array takes on the wire
+     *
+     * @param data string array, as send to or received from a device
+     * @return encoded size in bytes
+     */
+    public static int EncodedSize(@NonNull List<?> data) {
+        int size = WireSectionHeaders + WireArrayOverhead;
+        for (int i = 0, count = data.size(); i < count; i++) {
+            Object item = data.get(i);
+            size += DeviceUtils.WireSize(item instanceof CharSequence str ? str : String.valueOf(item));
         }
+        return size;
+    }
+
+    /**
+     * number of bytes a single array element takes on the wire
+     */
+    public static int WireSize(@NonNull CharSequence item) {
+        return WireElementOverhead + WireStringOverhead + DeviceUtils.Utf8Length(item);
+    }
 
-        return msg;
+    /**
+     * counts the utf-8 encoded length of a string without encoding it
+     */
+    public static int Utf8Length(@NonNull CharSequence str) {
+        int length = 0;
+        for (int i = 0, count = str.length(); i < count; i++) {
+            char c = str.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < count && Character.isLowSurrogate(str.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
     }
 
     @NotNull
     private static String MakeString(@Nullable Object obj) throws DeviceMessageSerializeException {
-        if (obj == null) {
+        if (obj == null || obj == JSONObject.NULL) {
             return "";
         }
 
@@ -1,11 +1,22 @@
 package de.romandrechsel.listago.utils;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 import de.romandrechsel.listago.logging.Logger;
 
 public class FileUtils {
     public static final String TAG = "FileUtils";
+    private static final int MaxWalkThreads = 4;
+    private static ForkJoinPool WalkPool = null;
 
     public static class DeleteDirResult {
         public boolean Success;
@@ -30,44 +41,132 @@ public class FileUtils {
         }
     }
 
+    /**
+     * deletes the content of a directory, subdirectories are deleted in parallel
+     *
+     * @param dir             directory to delete
+     * @param delete_if_empty true, if the directory itself should be deleted too
+     * @return number and size of the deleted files and directories
+     */
     public static DeleteDirResult DeleteDirectory(File dir, boolean delete_if_empty) {
-        DeleteDirResult result = new DeleteDirResult();
-        if (dir != null && dir.isDirectory()) {
-            boolean deleted_all = true;
-            String[] children = null;
+        if (dir == null) {
+            DeleteDirResult result = new DeleteDirResult();
+            result.Success = false;
+            return result;
+        }
+        return FileUtils.getWalkPool().invoke(new WalkTask(dir.toPath(), true, delete_if_empty));
+    }
+
+    /**
+     * gets the number and size of all files in a directory, without deleting anything
+     *
+     * @param dir directory to scan
+     * @return number of files and subdirectories and the size of all files
+     */
+    public static DeleteDirResult DirectorySize(File dir) {
+        if (dir == null) {
+            DeleteDirResult result = new DeleteDirResult();
+            result.Success = false;
+            return result;
+        }
+        return FileUtils.getWalkPool().invoke(new WalkTask(dir.toPath(), false, false));
+    }
+
+    /**
+     * walking blocks on file system calls, so it runs on its own bounded pool instead of the common pool,
+     * which is shared with parallel streams and other cpu-bound work
+     */
+    private static synchronized ForkJoinPool getWalkPool() {
+        if (FileUtils.WalkPool == null) {
+            FileUtils.WalkPool = new ForkJoinPool(Math.max(1, Math.min(MaxWalkThreads, Runtime.getRuntime().availableProcessors())));
+        }
+        return FileUtils.WalkPool;
+    }
+
+    /**
+     * walks a directory tree, every subdirectory is handled by its own task, files are handled inline
+     * symbolic links are never followed, in delete mode only the link itself is removed
+     */
+    private static class WalkTask extends RecursiveTask<DeleteDirResult> {
+        private final Path _path;
+        private final boolean _delete;
+        private final boolean _deleteSelf;
+
+        WalkTask(Path path, boolean delete, boolean delete_self) {
+            this._path = path;
+            this._delete = delete;
+            this._deleteSelf = delete_self;
+        }
+
+        @Override
+        protected DeleteDirResult compute() {
+            DeleteDirResult result = new DeleteDirResult();
+            BasicFileAttributes attributes;
             try {
-                children = dir.list();
-            } catch (Exception ex) {
-                Logger.Error(TAG, "Could not list directory " + dir.getAbsolutePath());
+                attributes = Files.readAttributes(this._path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+            } catch (IOException ex) {
                 result.Success = false;
+                return result;
+            }
+
+            if (!attributes.isDirectory()) {
+                this.handleFile(this._path, attributes, result);
+                return result;
             }
-            if (children != null) {
-                for (String child : children) {
-                    DeleteDirResult del = FileUtils.DeleteDirectory(new File(dir, child), true);
-                    result.Add(del);
-                    if (!del.Success) {
-                        deleted_all = false;
+
+            ArrayList<WalkTask> subtasks = new ArrayList<>();
+            try (DirectoryStream<Path> children = Files.newDirectoryStream(this._path)) {
+                for (Path child : children) {
+                    BasicFileAttributes child_attributes;
+                    try {
+                        child_attributes = Files.readAttributes(child, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                    } catch (IOException ex) {
+                        result.Success = false;
+                        continue;
+                    }
+                    if (child_attributes.isDirectory()) {
+                        subtasks.add(new WalkTask(child, this._delete, true));
+                    } else {
+                        this.handleFile(child, child_attributes, result);
                     }
                 }
+            } catch (IOException | SecurityException ex) {
+                Logger.Error(TAG, "Could not list directory " + this._path);
+                result.Success = false;
             }
-            if (deleted_all) {
-                if (delete_if_empty && dir.delete()) {
+
+            invokeAll(subtasks);
+            for (WalkTask task : subtasks) {
+                result.Add(task.join());
+            }
+
+            if (!this._delete) {
+                if (this._deleteSelf) {
                     result.Directories++;
                 }
-            } else {
-                result.Success = false;
+            } else if (result.Success && this._deleteSelf) {
+                try {
+                    Files.delete(this._path);
+                    result.Directories++;
+                } catch (IOException ex) {
+                    result.Success = false;
+                }
             }
-        } else if (dir != null && dir.isFile()) {
-            long size = dir.length();
-            if (dir.delete()) {
-                result.Files++;
-                result.Size += size;
-            } else {
-                result.Success = false;
+            return result;
+        }
+
+        private void handleFile(Path file, BasicFileAttributes attributes, DeleteDirResult result) {
+            long size = attributes.isRegularFile() ? attributes.size() : 0;
+            if (this._delete) {
+                try {
+                    Files.delete(file);
+                } catch (IOException ex) {
+                    result.Success = false;
+                    return;
+                }
             }
-        } else {
-            result.Success = false;
+            result.Files++;
+            result.Size += size;
         }
-        return result;
     }
 }
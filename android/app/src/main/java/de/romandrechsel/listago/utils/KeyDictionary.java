@@ -0,0 +1,122 @@
+package de.romandrechsel.listago.utils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.HashMap;
+
+/**
+ * dictionary of frequent message keys, that are replaced by short tokens on the wire
+ * the phone and the watch app negotiate the dictionary version, both sides must use the same table
+ */
+public class KeyDictionary {
+    /**
+     * latest dictionary version, the app supports
+     */
+    public static final int LatestVersion = 1;
+
+    private static final char TokenPrefix = '~';
+
+    /*
+     * the position of a key is its token, so keys must only be appended in new versions, never reordered
+     */
+    private static final String[][] Versions = {
+        {},
+        {"uuid", "rev", "items", "type", "tid", "from", "missing", "payload", "code", "msg"},
+    };
+
+    private static final KeyDictionary[] Dictionaries = new KeyDictionary[Versions.length];
+
+    public final int Version;
+    @NonNull
+    private final String[] _keys;
+    @NonNull
+    private final HashMap<String, String> _tokens = new HashMap<>();
+
+    private KeyDictionary(int version) {
+        this.Version = version;
+        this._keys = Versions[version];
+        for (int i = 0; i < this._keys.length; i++) {
+            this._tokens.put(this._keys[i], TokenPrefix + Integer.toString(i, 36));
+        }
+    }
+
+    /**
+     * gets the dictionary for a negotiated version
+     *
+     * @param version version, the device app supports
+     * @return dictionary of the highest version both sides support, or null if no keys are replaced
+     */
+    @Nullable
+    public static synchronized KeyDictionary Get(int version) {
+        version = Math.min(version, LatestVersion);
+        if (version <= 0) {
+            return null;
+        }
+        if (Dictionaries[version] == null) {
+            Dictionaries[version] = new KeyDictionary(version);
+        }
+        return Dictionaries[version];
+    }
+
+    /**
+     * replaces the key of a key=value entry by its token
+     * item properties like 'it3_uuid' keep their item prefix, only the property name is replaced
+     *
+     * @param entry entry to send
+     * @return entry with the token as key, or the entry itself if the key is not in the dictionary
+     */
+    @NonNull
+    public String Encode(@NonNull String entry) {
+        int separator = entry.indexOf('=');
+        if (separator <= 0) {
+            return entry;
+        }
+
+        int start = KeyDictionary.propertyStart(entry, separator);
+        String token = this._tokens.get(entry.substring(start, separator));
+        if (token == null) {
+            return entry;
+        }
+        return entry.substring(0, start) + token + entry.substring(separator);
+    }
+
+    /**
+     * gets the full key of a received entry
+     *
+     * @param entry     received entry
+     * @param separator position of the '=' in the entry
+     * @return full key
+     */
+    @NonNull
+    public String DecodeKey(@NonNull String entry, int separator) {
+        int start = KeyDictionary.propertyStart(entry, separator);
+        if (start < separator && entry.charAt(start) == TokenPrefix) {
+            try {
+                int index = Integer.parseInt(entry.substring(start + 1, separator), 36);
+                if (index >= 0 && index < this._keys.length) {
+                    return entry.substring(0, start) + this._keys[index];
+                }
+            } catch (NumberFormatException ignored) {
+            }
+        }
+        return entry.substring(0, separator);
+    }
+
+    /**
+     * position of the property name in a key, skips an item prefix like 'it3_'
+     */
+    private static int propertyStart(@NonNull String entry, int separator) {
+        if (!entry.startsWith("it")) {
+            return 0;
+        }
+        int i = 2;
+        while (i < separator && Character.isDigit(entry.charAt(i))) {
+            i++;
+        }
+        if (i > 2 && i < separator && entry.charAt(i) == '_') {
+            return i + 1;
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,73 @@
+package de.romandrechsel.listago.garmin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class ListPayloadCacheTest {
+
+    private static ListPayloadCache.ListPayload put(ListPayloadCache cache, String... entries) {
+        ListPayloadCache.ListPayload payload = cache.Put(Arrays.asList(entries));
+        assertNotNull(payload);
+        return payload;
+    }
+
+    @Test
+    public void ignoresEntriesWithoutUuid() {
+        ListPayloadCache cache = new ListPayloadCache();
+        assertNull(cache.Put(Arrays.asList("name=list", "it0_name=item")));
+        assertNull(cache.Get(null));
+    }
+
+    @Test
+    public void pagesItemsWithGapsInTheirOrder() {
+        ListPayloadCache cache = new ListPayloadCache();
+        ListPayloadCache.ListPayload payload = put(cache, "uuid=l1", "name=list", "it0_name=a", "it0_done=0", "it3_name=b", "it7_name=c", "it7_done=1", "it12_name=d");
+        assertSame(payload, cache.Get("l1"));
+        assertEquals(4, payload.ItemCount());
+
+        assertEquals(List.of("uuid=l1", "name=list", "items=4", "it0_name=a", "it0_done=0", "it3_name=b"), payload.FirstPage(2));
+
+        ArrayList<String> page = new ArrayList<>();
+        payload.AddItems(page, 2, 3);
+        assertEquals(List.of("it7_name=c", "it7_done=1", "it12_name=d"), page);
+    }
+
+    @Test
+    public void keepsPropertiesOfInterleavedItemsTogether() {
+        ListPayloadCache cache = new ListPayloadCache();
+        ListPayloadCache.ListPayload payload = put(cache, "uuid=l2", "it5_name=a", "it2_name=b", "it5_done=1", "rev=4", "it2_done=0");
+        assertEquals(2, payload.ItemCount());
+
+        ArrayList<String> first = new ArrayList<>();
+        payload.AddItems(first, 0, 0);
+        assertEquals(List.of("it5_name=a", "it5_done=1"), first);
+
+        ArrayList<String> second = new ArrayList<>();
+        payload.AddItems(second, 1, 1);
+        assertEquals(List.of("it2_name=b", "it2_done=0"), second);
+
+        assertEquals(List.of("uuid=l2", "rev=4", "items=2", "it5_name=a", "it5_done=1", "it2_name=b", "it2_done=0"), payload.FirstPage(10));
+    }
+
+    @Test
+    public void clampsRanges() {
+        ListPayloadCache cache = new ListPayloadCache();
+        ListPayloadCache.ListPayload payload = put(cache, "uuid=l3", "it0_name=a", "it1_name=b");
+
+        ArrayList<String> page = new ArrayList<>();
+        payload.AddItems(page, -5, 10);
+        assertEquals(List.of("it0_name=a", "it1_name=b"), page);
+
+        page.clear();
+        payload.AddItems(page, 2, 5);
+        assertEquals(0, page.size());
+    }
+}
@@ -0,0 +1,131 @@
+package de.romandrechsel.listago.logging;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class LogRingBufferTest {
+
+    private static LogEntry entry(String message) {
+        return new LogEntry(Logger.Level.Debug, "Test", message, null);
+    }
+
+    @Test
+    public void drainsInOrderAcrossWrapAround() {
+        LogRingBuffer buffer = new LogRingBuffer(4);
+        ArrayList<LogEntry> drained = new ArrayList<>();
+        int next = 0;
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 3; i++) {
+                assertTrue(buffer.Offer(entry(String.valueOf(next++))));
+            }
+            assertEquals(3, buffer.Drain(drained, 10));
+        }
+
+        assertEquals(15, drained.size());
+        for (int i = 0; i < drained.size(); i++) {
+            assertEquals(String.valueOf(i), drained.get(i).Message);
+        }
+        assertEquals(0, buffer.Size());
+    }
+
+    @Test
+    public void dropsAndCountsWhenFull() {
+        LogRingBuffer buffer = new LogRingBuffer(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.Offer(entry(String.valueOf(i))));
+        }
+        assertFalse(buffer.Offer(entry("4")));
+        assertFalse(buffer.Offer(entry("5")));
+        assertEquals(4, buffer.Size());
+        assertEquals(2, buffer.TakeDropped());
+        assertEquals(0, buffer.TakeDropped());
+
+        ArrayList<LogEntry> drained = new ArrayList<>();
+        assertEquals(2, buffer.Drain(drained, 2));
+        assertTrue(buffer.Offer(entry("6")));
+        assertEquals(3, buffer.Drain(drained, 10));
+        assertEquals("0", drained.get(0).Message);
+        assertEquals("3", drained.get(3).Message);
+        assertEquals("6", drained.get(4).Message);
+    }
+
+    @Test
+    public void capacityIsRoundedUpToPowerOfTwo() {
+        LogRingBuffer buffer = new LogRingBuffer(5);
+        int accepted = 0;
+        for (int i = 0; i < 10; i++) {
+            if (buffer.Offer(entry(String.valueOf(i)))) {
+                accepted++;
+            }
+        }
+        assertEquals(8, accepted);
+    }
+
+    @Test
+    public void concurrentProducersLoseNothingButDroppedEntries() throws Exception {
+        final int producers = 4;
+        final int perProducer = 20000;
+        LogRingBuffer buffer = new LogRingBuffer(64);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean done = new AtomicBoolean(false);
+        long[] accepted = new long[producers];
+
+        ArrayList<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            final int producer = p;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perProducer; i++) {
+                    if (buffer.Offer(entry(producer + ":" + i))) {
+                        accepted[producer]++;
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+
+        ArrayList<LogEntry> drained = new ArrayList<>();
+        Thread consumer = new Thread(() -> {
+            while (!done.get() || buffer.Size() > 0) {
+                buffer.Drain(drained, 16);
+            }
+        });
+        consumer.start();
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        done.set(true);
+        consumer.join();
+
+        long total_accepted = 0;
+        for (long count : accepted) {
+            total_accepted += count;
+        }
+        assertEquals(total_accepted, drained.size());
+        assertEquals((long) producers * perProducer, total_accepted + buffer.TakeDropped());
+
+        // the entries of every producer keep their order
+        int[] last = new int[producers];
+        java.util.Arrays.fill(last, -1);
+        for (LogEntry entry : drained) {
+            String[] parts = entry.Message.split(":");
+            int producer = Integer.parseInt(parts[0]);
+            int index = Integer.parseInt(parts[1]);
+            assertTrue(index > last[producer]);
+            last[producer] = index;
+        }
+    }
+}
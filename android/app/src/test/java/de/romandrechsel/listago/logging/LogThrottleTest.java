@@ -0,0 +1,94 @@
+package de.romandrechsel.listago.logging;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.List;
+
+public class LogThrottleTest {
+
+    @Test
+    public void collapsesRepeatsWithinWindow() {
+        LogThrottle throttle = new LogThrottle();
+        assertTrue(throttle.Admit(Logger.Level.Debug, "Tag", "message", 0));
+        assertFalse(throttle.Admit(Logger.Level.Debug, "Tag", "message", 100));
+        assertFalse(throttle.Admit(Logger.Level.Debug, "Tag", "message", 200));
+        assertTrue(throttle.Admit(Logger.Level.Debug, "Tag", "other message", 300));
+        assertTrue(throttle.HasSuppressed());
+    }
+
+    @Test
+    public void reportsRepeatsWhenWindowExpires() {
+        LogThrottle throttle = new LogThrottle();
+        throttle.Admit(Logger.Level.Notice, "Tag", "message", 0);
+        throttle.Admit(Logger.Level.Notice, "Tag", "message", 10);
+        throttle.Admit(Logger.Level.Notice, "Tag", "message", 20);
+
+        assertTrue(throttle.Expire(LogThrottle.Window - 1).isEmpty());
+
+        List<LogThrottle.Summary> summaries = throttle.Expire(LogThrottle.Window);
+        assertEquals(1, summaries.size());
+        assertEquals(Logger.Level.Notice, summaries.get(0).Level);
+        assertEquals("Tag", summaries.get(0).Tag);
+        assertTrue(summaries.get(0).Message.contains("repeated 2 times"));
+        assertFalse(throttle.HasSuppressed());
+
+        // after the window the message is admitted again
+        assertTrue(throttle.Admit(Logger.Level.Notice, "Tag", "message", LogThrottle.Window + 1));
+    }
+
+    @Test
+    public void limitsEntriesPerTagUntilWindowExpires() {
+        LogThrottle throttle = new LogThrottle();
+        int admitted = 0;
+        for (int i = 0; i < 100; i++) {
+            if (throttle.Admit(Logger.Level.Debug, "Tag", "message " + i, i)) {
+                admitted++;
+            }
+        }
+        assertTrue(admitted < 100);
+        assertTrue(throttle.Admit(Logger.Level.Debug, "Other", "message", 100));
+
+        List<LogThrottle.Summary> summaries = throttle.Expire(LogThrottle.Window);
+        assertEquals(1, summaries.size());
+        assertTrue(summaries.get(0).Message.startsWith((100 - admitted) + " messages suppressed"));
+        assertTrue(throttle.Admit(Logger.Level.Debug, "Tag", "message 0", LogThrottle.Window));
+    }
+
+    @Test
+    public void collapsesErrorStorms() {
+        LogThrottle throttle = new LogThrottle();
+        assertTrue(throttle.Admit(Logger.Level.Error, "Tag", "failed", 0));
+        for (int i = 1; i < 100; i++) {
+            assertFalse(throttle.Admit(Logger.Level.Error, "Tag", "failed", i));
+        }
+
+        List<LogThrottle.Summary> summaries = throttle.Expire(LogThrottle.Window);
+        assertEquals(1, summaries.size());
+        assertEquals(Logger.Level.Error, summaries.get(0).Level);
+        assertTrue(summaries.get(0).Message.contains("repeated 99 times"));
+    }
+
+    @Test
+    public void admitsFirstOccurrenceOfErrorsAboveTagLimit() {
+        LogThrottle throttle = new LogThrottle();
+        for (int i = 0; i < 100; i++) {
+            throttle.Admit(Logger.Level.Debug, "Tag", "message " + i, i);
+        }
+        assertFalse(throttle.Admit(Logger.Level.Debug, "Tag", "message 100", 100));
+        assertTrue(throttle.Admit(Logger.Level.Error, "Tag", "first error", 101));
+        assertTrue(throttle.Admit(Logger.Level.Error, "Tag", "second error", 102));
+        assertFalse(throttle.Admit(Logger.Level.Error, "Tag", "first error", 103));
+    }
+
+    @Test
+    public void emptyWhenNothingWasSuppressed() {
+        LogThrottle throttle = new LogThrottle();
+        throttle.Admit(Logger.Level.Debug, "Tag", "message", 0);
+        assertFalse(throttle.HasSuppressed());
+        assertTrue(throttle.Expire(LogThrottle.Window).isEmpty());
+    }
+}
@@ -0,0 +1,65 @@
+package de.romandrechsel.listago.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+public class KeyDictionaryTest {
+
+    private static String roundTrip(KeyDictionary dictionary, String entry) {
+        String encoded = dictionary.Encode(entry);
+        int separator = encoded.indexOf('=');
+        return dictionary.DecodeKey(encoded, separator) + encoded.substring(separator);
+    }
+
+    @Test
+    public void negotiatesSupportedVersion() {
+        assertNull(KeyDictionary.Get(0));
+        assertNull(KeyDictionary.Get(-1));
+        KeyDictionary dictionary = KeyDictionary.Get(KeyDictionary.LatestVersion + 5);
+        assertNotNull(dictionary);
+        assertEquals(KeyDictionary.LatestVersion, dictionary.Version);
+        assertSame(dictionary, KeyDictionary.Get(KeyDictionary.LatestVersion));
+    }
+
+    @Test
+    public void encodesKnownKeys() {
+        KeyDictionary dictionary = KeyDictionary.Get(1);
+        assertNotNull(dictionary);
+        String encoded = dictionary.Encode("uuid=1234");
+        assertNotEquals("uuid=1234", encoded);
+        assertEquals("1234", encoded.substring(encoded.indexOf('=') + 1));
+    }
+
+    @Test
+    public void roundTripsEntries() {
+        KeyDictionary dictionary = KeyDictionary.Get(1);
+        assertNotNull(dictionary);
+        String[] entries = {"uuid=abc", "rev=3", "type=list", "it0_uuid=def", "it12_rev=1", "it3_name=milk", "name=groceries", "msg=a=b", "it_uuid=x", "item=1"};
+        for (String entry : entries) {
+            assertEquals(entry, roundTrip(dictionary, entry));
+        }
+    }
+
+    @Test
+    public void keepsItemPrefix() {
+        KeyDictionary dictionary = KeyDictionary.Get(1);
+        assertNotNull(dictionary);
+        String encoded = dictionary.Encode("it7_uuid=abc");
+        assertEquals("it7_", encoded.substring(0, 4));
+        assertEquals("it7_uuid", dictionary.DecodeKey(encoded, encoded.indexOf('=')));
+    }
+
+    @Test
+    public void leavesEntriesWithoutKeyUntouched() {
+        KeyDictionary dictionary = KeyDictionary.Get(1);
+        assertNotNull(dictionary);
+        assertEquals("list", dictionary.Encode("list"));
+        assertEquals("=value", dictionary.Encode("=value"));
+        assertEquals("unknown=1", dictionary.Encode("unknown=1"));
+    }
+}
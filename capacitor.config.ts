@@ -30,6 +30,10 @@ const config: CapacitorConfig = {
             style: KeyboardStyle.Default,
             resizeOnFullScreen: false,
         },
+        SysInfo: {
+            // size limit in megabytes of the cache for shared files, that were not imported yet
+            receivedCacheQuota: 50,
+        },
         EdgeToEdge: {
             backgroundColor: "#ffffff",
         },
@@ -4,7 +4,7 @@ import SharePlugin from "src/app/plugins/share/share-plugin";
 import { Logger } from "src/app/services/logging/logger";
 
 export namespace ShareUtil {
-    export const SendMail = async function (args: { sendto: string; files?: FileInfo | FileInfo[] | string | string[]; title?: string; text?: string; chooserTitle?: string }): Promise<boolean> {
+    export const SendMail = async function (args: { sendto: string; files?: FileInfo | FileInfo[] | string | string[]; title?: string; text?: string; chooserTitle?: string; archive?: string }): Promise<boolean> {
         const attachments: string[] = [];
         if (args.files) {
             if (!Array.isArray(args.files)) {
@@ -24,6 +24,7 @@ export namespace ShareUtil {
             body: args.text,
             attachments: attachments.length > 0 ? attachments : undefined,
             chooserTitle: args.chooserTitle,
+            archive: args.archive,
         });
         if (send.success) {
             Logger.Debug(`Opened email intent for sending mail to ${args.sendto}`);
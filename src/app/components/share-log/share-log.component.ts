@@ -102,7 +102,7 @@ export class StoreLogComponent {
                     }
                 } else if (this.do.value == "email") {
                     const email_title = this._locale.getText("comp-sharelog.share_email.title", { package: meta.Package?.Name, platform: meta.Device?.Platform, file: this.Params.file.Filename, size: FileUtils.File.FormatSize(this.Params.file.Size) });
-                    if (await ShareUtil.SendMail({ sendto: this._config.EMailAddress, files: this.Params.file.Path, title: email_title, text: this._locale.getText("comp-sharelog.share_email.text") })) {
+                    if (await ShareUtil.SendMail({ sendto: this._config.EMailAddress, files: this.Params.file.Path, archive: this.Params.file.Filename, title: email_title, text: this._locale.getText("comp-sharelog.share_email.text") })) {
                         Logger.Debug(`Shared log ${this.Params.file.Filename} via e-mail`);
                     }
                     this._modalCtrl.dismiss(null, "confirm");
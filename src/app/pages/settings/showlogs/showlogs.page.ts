@@ -1,6 +1,7 @@
 import { CommonModule } from "@angular/common";
 import { ChangeDetectionStrategy, Component, ElementRef, inject, ViewChild } from "@angular/core";
 import { ActivatedRoute, Router } from "@angular/router";
+import { Capacitor } from "@capacitor/core";
 import { FileInfo } from "@capacitor/filesystem";
 import { IonContent, IonFab, IonFabButton, IonFabList, IonIcon, IonSelect, IonSelectOption, IonText, ModalController, ScrollDetail, SelectCustomEvent } from "@ionic/angular/standalone";
 import { IonContentCustomEvent } from "@ionic/core";
@@ -22,6 +23,9 @@ import { PageBase } from "../../page-base";
     providers: [provideTranslocoScope({ scope: "pages/settings/showlogs-page", alias: "page_settings_showlogs" }, { scope: "common/buttons", alias: "buttons" })],
 })
 export class ShowlogsPage extends PageBase {
+    /** maximum number of filtered entries, that are shown */
+    private static readonly FilterLimit = 5000;
+
     @ViewChild("fabButton", { read: ElementRef, static: false }) fabButton?: ElementRef;
     @ViewChild("saveLogsButton", { read: ElementRef, static: false }) saveLogsButton?: ElementRef;
     @ViewChild("mainContent", { read: IonContent, static: false }) mainContent?: IonContent;
@@ -34,6 +38,12 @@ export class ShowlogsPage extends PageBase {
 
     public runningAnimation?: InteractionAnimation;
 
+    /** most verbose level, that is shown, 4 shows the whole logfile */
+    public levelFilter: number = 4;
+
+    /** entries of the current session, filtered by level */
+    public filteredLog?: string;
+
     private _timerSubscription?: Subscription;
 
     private _selectedDate?: Date;
@@ -56,6 +66,27 @@ export class ShowlogsPage extends PageBase {
         return this._scrollPosition;
     }
 
+    public get CanFilter(): boolean {
+        return Capacitor.isNativePlatform() && this.Logger.IsCurrentLogfile(this.currentLogfile?.Filename);
+    }
+
+    public get LevelFilterKey(): string {
+        switch (this.levelFilter) {
+            case 1:
+                return "filter_error";
+            case 2:
+                return "filter_normal";
+            case 3:
+                return "filter_verbose";
+            default:
+                return "filter_all";
+        }
+    }
+
+    public get LogContent(): string | undefined {
+        return this.filteredLog ?? this.currentLogfile?.Content;
+    }
+
     public get ShowScrollButtons(): boolean {
         return this.isScrollable;
     }
@@ -80,7 +111,19 @@ export class ShowlogsPage extends PageBase {
     public override async ionViewDidEnter() {
         await super.ionViewDidEnter();
         this._timerSubscription = interval(2000).subscribe(async () => {
-            if (this.currentLogfile) {
+            if (this.filteredLog != undefined) {
+                const size = this.filteredLog.length;
+                const scroll_to_bottom = this._scrollPosition == "bottom" || !this.isScrollable;
+                await this.applyFilter();
+                if (size != (this.filteredLog?.length ?? 0)) {
+                    this.cdr.detectChanges();
+                    if (scroll_to_bottom) {
+                        setTimeout(() => {
+                            this.ScrollToBottom(false);
+                        }, 1);
+                    }
+                }
+            } else if (this.currentLogfile) {
                 const size = this.currentLogfile?.Content?.length ?? 0;
                 const scroll_to_bottom = this._scrollPosition == "bottom" || !this.isScrollable;
                 this.currentLogfile = await this.Logger.GetLogfile(this.currentLogfile?.Filename);
@@ -130,6 +173,15 @@ export class ShowlogsPage extends PageBase {
         this.loadLogfile(event.detail.value);
     }
 
+    public async onChangeLevelFilter(event: SelectCustomEvent) {
+        this.levelFilter = Number(event.detail.value);
+        await this.applyFilter();
+        this.cdr.detectChanges();
+        setTimeout(() => {
+            this.ScrollToBottom(true);
+        }, 1);
+    }
+
     public async onDelete() {
         if (this.currentLogfile) {
             const locale = this.Locale.getTexts(["buttons.yes", "buttons.no", "page_settings_showlogs.confirm_delete"], { filename: this.currentLogfile.Filename });
@@ -215,9 +267,22 @@ export class ShowlogsPage extends PageBase {
         } else {
             this.currentLogfile = undefined;
         }
+        await this.applyFilter();
 
         setTimeout(() => {
             this.ScrollToBottom(true);
         }, 1);
     }
+
+    /**
+     * the entries of the current session are filtered by the native log index, so the logfile doesn't need to be read and split
+     */
+    private async applyFilter() {
+        if (this.levelFilter < 4 && this.CanFilter) {
+            const result = await this.Logger.QueryLogs(this.levelFilter, ShowlogsPage.FilterLimit);
+            this.filteredLog = result?.lines.join("\n");
+        } else {
+            this.filteredLog = undefined;
+        }
+    }
 }
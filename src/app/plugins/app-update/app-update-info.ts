@@ -3,6 +3,8 @@ export type AppUpdateInfo = {
     availableVersionCode: number;
     updateAvailable: boolean;
     flexibleUpdateAllowed: boolean;
+    cached?: boolean;
+    cacheAge?: number;
 };
 
 export type AppUpdateInfoError = {
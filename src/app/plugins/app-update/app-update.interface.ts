@@ -4,7 +4,7 @@ import type { AppUpdateInfo, AppUpdateInfoError } from "./app-update-info";
 import type { AppUpdatePerformUpdateResult } from "./app-update-perform-update-result";
 
 export interface IAppUpdate extends Plugin {
-    getAppUpdateInfo(): Promise<AppUpdateInfo | AppUpdateInfoError>;
+    getAppUpdateInfo(args?: { force?: boolean; maxAge?: number }): Promise<AppUpdateInfo | AppUpdateInfoError>;
     performUpdate(): Promise<AppUpdatePerformUpdateResult>;
     completeFlexibleUpdate(): Promise<void>;
     openAppStore(): Promise<void>;
@@ -12,7 +12,8 @@ export interface IConnectIQ extends Plugin {
 
     GetDevice(opts: { device_id: string }): Promise<DeviceEventArgs>;
 
-    SendToDevice(opts: { device_id: string; type?: string; json: String }): Promise<TransmitDataEventArgs>;
+    SendToDevice(opts: { device_id: string; type?: string; json?: String; data?: any }): Promise<TransmitDataEventArgs>;
+
 
     OpenStore(): Promise<void>;
 
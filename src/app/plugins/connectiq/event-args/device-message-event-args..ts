@@ -2,5 +2,5 @@ import { DeviceEventArgs } from "./device-event-args";
 
 export type DeviceMessageEventArgs = {
     device: DeviceEventArgs;
-    message?: string;
+    message?: { [key: string]: string } | string;
 };
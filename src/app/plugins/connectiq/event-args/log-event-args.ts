@@ -2,5 +2,11 @@ export type LogEventArgs = {
     level: "debug" | "notice" | "important" | "error";
     tag: string;
     message: string;
+    time?: number;
     obj?: any;
 };
+
+export type LogBatchEventArgs = {
+    logs: LogEventArgs[];
+    dropped?: number;
+};
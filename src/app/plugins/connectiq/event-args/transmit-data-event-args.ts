@@ -1,3 +1,4 @@
 export type TransmitDataEventArgs = {
     success: boolean;
+    result?: "Success" | "NotSend" | "Timeout" | "Failed" | "DeviceNotFound" | "InvalidState" | "ServiceUnavailable" | "MessageEmpty" | "InvalidPayload" | "PayloadTooLarge";
 };
@@ -1,13 +1,20 @@
 import { Logger } from "../../../services/logging/logger";
-import { LogEventArgs } from "../event-args/log-event-args";
+import { LogBatchEventArgs, LogEventArgs } from "../event-args/log-event-args";
 import { ConnectIQListener } from "./connect-iq-listener";
 
-export class PluginLogsListener extends ConnectIQListener<LogEventArgs> {
+export class PluginLogsListener extends ConnectIQListener<LogBatchEventArgs> {
     public Event(): string {
         return "LOG";
     }
 
-    protected async Callback(log: LogEventArgs): Promise<void> {
+    protected async Callback(batch: LogBatchEventArgs): Promise<void> {
+        batch.logs?.forEach(log => this.Log(log));
+        if (batch.dropped) {
+            Logger.ImportantNoLogcat(`Logger: ${batch.dropped} native log entries were dropped`);
+        }
+    }
+
+    private Log(log: LogEventArgs) {
         switch (log.level) {
             case "debug":
                 Logger.DebugNoLogcat(`${log.tag}: ${log.message}`, log.obj);
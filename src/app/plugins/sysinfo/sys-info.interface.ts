@@ -4,7 +4,18 @@ export interface ISysInfo extends Plugin {
     DisplayDensity(): Promise<{ density: number }>;
     NightMode(): Promise<{ isNightMode: boolean }>;
     Logcat(args: { level: "d" | "n" | "i" | "e"; message: string }): Promise<void>;
+    SetLogLevel(args: { level: number }): Promise<void>;
+    NativeLogs(): Promise<{ logs?: string }>;
+    ClearNativeLogs(): Promise<void>;
+    QueryLogs(args: { level?: number; tags?: string[]; from?: number; to?: number; offset?: number; limit?: number }): Promise<{ total: number; entries: { time: number; level: "debug" | "notice" | "important" | "error"; tag: string; message: string }[] }>;
+    StorageUsage(args?: { force?: boolean }): Promise<{
+        areas: { [area in "webview" | "databases" | "received" | "logs" | "cache" | "files"]: { size: number; files: number } };
+        total: { size: number; files: number };
+        listed: number;
+        duration: number;
+    }>;
+    ParseListFile(args: { path: string; id: string; batch?: number }): Promise<void>;
     AppInstalled(args: { packageName: string; silent?: boolean }): Promise<{ installed: boolean }>;
-    AppIsReady(): Promise<{ actions?: string }>;
+    AppIsReady(): Promise<{ actions?: string; startup?: { total: number; phases: { name: string; start: number; duration?: number }[] } }>;
     addListener<T>(eventName: string, listenerFunc: (data: T) => void): Promise<PluginListenerHandle>;
 }
@@ -63,7 +63,7 @@ export class AppUpdaterService {
             return await this.finish();
         }
 
-        if (!(await this.getAppUpdateInfo())) {
+        if (!(await this.getAppUpdateInfo(force))) {
             if (force) {
                 this._popups.Toast.Error("app-update.error", undefined, true);
             }
@@ -104,7 +104,7 @@ export class AppUpdaterService {
 
     public async StartAppUpdate(listener?: AppUpdateListener) {
         this._downloadSuccessful = undefined;
-        if (!(await this.getAppUpdateInfo()) || !this._updateInfo?.updateAvailable) {
+        if (!(await this.getAppUpdateInfo(true)) || !this._updateInfo?.updateAvailable) {
             this._downloadSuccessful = false;
             this._updateRunning = false;
             listener?.updateStatus();
@@ -178,8 +178,8 @@ export class AppUpdaterService {
         await AppUpdate.removeAllListeners();
     }
 
-    private async getAppUpdateInfo(): Promise<boolean> {
-        const updateinfo = await AppUpdate.getAppUpdateInfo();
+    private async getAppUpdateInfo(force: boolean = false): Promise<boolean> {
+        const updateinfo = await AppUpdate.getAppUpdateInfo({ force: force });
         if ("error" in updateinfo) {
             Logger.Error(`Could not fetch app update: ${updateinfo.error}`);
             return false;
@@ -285,6 +285,10 @@ export class AppService {
                 this._logger.Notice(`Unknown initial actions: `, initActions.actions);
             }
         }
+        if (initActions?.startup) {
+            const phases = initActions.startup.phases.map(p => `${p.name}: ${p.start}${p.duration !== undefined ? ` (${p.duration} ms)` : ""}`);
+            this._logger.Debug(`App startup took ${initActions.startup.total} ms`, phases.join(", "));
+        }
         this._logger.Debug(`App initialization completed`);
     }
 
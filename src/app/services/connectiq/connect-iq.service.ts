@@ -297,10 +297,14 @@ export class ConnectIQService {
             obj.data.tid = listener.TId;
         }
 
-        if ((await ConnectIQ.SendToDevice({ device_id: String(obj.device.Identifier), type: obj.messageType, json: JSON.stringify(obj.data) })).success) {
+        const result = await ConnectIQ.SendToDevice({ device_id: String(obj.device.Identifier), type: obj.messageType, data: obj.data });
+        if (result.success) {
             MainToolbarComponent.ToggleProgressbar(false);
             return listener?.TId ?? true;
         } else {
+            if (result.result == "PayloadTooLarge") {
+                Logger.Error(`Could not send data to device ${obj.device.toLog()}: payload exceeds the message budget of the device`);
+            }
             if (listener) {
                 this.removeListener(listener);
             }
@@ -25,6 +25,11 @@ export class IntentsService {
     }
 
     public async onIntent(intent: Intent): Promise<void> {
+        if (intent.progress) {
+            Logger.Debug(`Importing shared file: ${intent.progress.copied}${intent.progress.total ? " / " + intent.progress.total : ""} bytes copied`);
+            return;
+        }
+
         if (intent.action == "android.intent.action.SEND" && intent.type == "application/zip") {
             if (intent.extras?.request == "export-from-lists") {
                 await this.handleListsImport(intent);
@@ -72,7 +77,7 @@ export class IntentsService {
             const res = await Filesystem.copy({ from: filepath, to: "import/lists-export.zip", toDirectory: Directory.Cache });
             importUri = res.uri;
         } catch (e) {
-            Logger.Error(`Failed to copy file from ${intent.extras["android.intent.extra.STREAM"]} to '"import/lists-export.zip"' in ''${Directory.Cache}': `, e);
+            Logger.Error(`Failed to copy file from ${filepath} to '"import/lists-export.zip"' in ''${Directory.Cache}': `, e);
             this.errorListsImport();
             return;
         }
@@ -101,4 +106,5 @@ type Intent = {
     action: string;
     type: string;
     extras: any;
+    progress?: { uri: string; copied: number; total?: number };
 };
@@ -1,5 +1,6 @@
 import { formatDate } from "@angular/common";
 import { Injectable, isDevMode } from "@angular/core";
+import { Capacitor } from "@capacitor/core";
 import { Directory, Encoding, FileInfo, Filesystem } from "@capacitor/filesystem";
 import { FileUtils } from "src/app/classes/utils/file-utils";
 import SysInfo from "src/app/plugins/sysinfo/sys-info";
@@ -65,6 +66,7 @@ export class LoggingService {
      */
     public async Initialize() {
         this.LogLevel = await this.Preferences.Get<ELogType>(EPrefProperty.LogMode, this.LogLevel);
+        await this.SetNativeLogLevel();
         const autodelete = await this.Preferences.Get(EPrefProperty.LogsAutoDelete, this.AutoDelete);
         await this.SetAutodelete(autodelete);
         this.Debug("Logging initialized");
@@ -341,6 +343,16 @@ export class LoggingService {
         if (changed) {
             this.Notice(`Changed logging to ${this.LogLevelShort} (${this.LogLevel})`);
             this.Preferences.Set(EPrefProperty.LogMode, this.LogLevel);
+            await this.SetNativeLogLevel();
+        }
+    }
+
+    /**
+     * passes the log level to the native logger, so suppressed messages are not even created there
+     */
+    private async SetNativeLogLevel() {
+        if (Capacitor.isNativePlatform()) {
+            await SysInfo.SetLogLevel({ level: this.LogLevel });
         }
     }
 
@@ -401,6 +413,37 @@ export class LoggingService {
         return file;
     }
 
+    /**
+     * checks, if a logfile is the one of the current session
+     * @param name filename of the logfile
+     */
+    public IsCurrentLogfile(name?: string): boolean {
+        return name != undefined && `${LoggingService.LogPath}/${name}` == this.LogFile;
+    }
+
+    /**
+     * queries the entries of the current session from the native log index, without reading the logfile
+     * @param level most verbose level to include
+     * @param limit maximum number of entries, the newest entries are returned
+     * @returns log lines in the format of the logfile, oldest first, and the total number of matching entries
+     */
+    public async QueryLogs(level: ELogType, limit: number): Promise<{ lines: string[]; total: number } | undefined> {
+        if (!Capacitor.isNativePlatform()) {
+            return undefined;
+        }
+        try {
+            const result = await SysInfo.QueryLogs({ level: level, limit: limit });
+            const lines = result.entries.reverse().map(entry => {
+                const prefix = `[${entry.level.charAt(0).toUpperCase()}]${formatDate(entry.time, "yyyy-MM-ddTHH:mm:ss.SSS", "en")}`;
+                return entry.tag == "App" ? `${prefix}: ${entry.message}` : `${prefix}: ${entry.tag}: ${entry.message}`;
+            });
+            return { lines: lines, total: result.total };
+        } catch (e) {
+            console.error("Could not query native logs", e);
+            return undefined;
+        }
+    }
+
     /**
      * get the absolute path of a logfile with content://
      * @param name
@@ -1,8 +1,10 @@
+import { Capacitor } from "@capacitor/core";
 import { Directory, Encoding, type FileInfo, Filesystem } from "@capacitor/filesystem";
 import { Zip } from "capa-zip";
 import { FileUtils } from "src/app/classes/utils/file-utils";
 import { StringUtils } from "src/app/classes/utils/string-utils";
 import { MainToolbarComponent } from "src/app/components/main-toolbar/main-toolbar.component";
+import SysInfo from "src/app/plugins/sysinfo/sys-info";
 import { ConnectIQService } from "src/app/services/connectiq/connect-iq.service";
 import type { ListitemModel } from "src/app/services/lists/listitem";
 import type { ListsService } from "src/app/services/lists/lists.service";
@@ -12,6 +14,7 @@ import { LoggingService } from "src/app/services/logging/logging.service";
 import { environment } from "src/environments/environment";
 import { EPrefProperty, PreferencesService } from "../../preferences.service";
 import type { SqliteService } from "../../sqlite/sqlite.service";
+import type { ListitemModel as ListitemFileModel } from "../listitem-model";
 import type { ListitemTrashModel } from "../listitem-trash-model";
 import { ListModel } from "./../list-model";
 import { ModelToList, ModelToListitem } from "./model-to";
@@ -315,7 +318,7 @@ export class ListsImporter {
     }
 
     private async importListFile(args: { file: FileInfo; order_offset: number; is_trash: boolean }, sqlite: SqliteService, listsService: ListsService): Promise<boolean> {
-        const json = await this.getFileJson<ListModel>(args.file);
+        const json = await this.getListFileJson(args.file);
 
         if (!json) {
             Logger.Error(`Importer: could not read JSON from file '${args.file.uri}'`);
@@ -440,6 +443,46 @@ export class ListsImporter {
         return 0;
     }
 
+    private async getListFileJson(file: FileInfo): Promise<ListModel | undefined> {
+        if (!Capacitor.isNativePlatform()) {
+            return this.getFileJson<ListModel>(file);
+        }
+
+        // the list file is parsed natively and streamed in batches, so the file is never read into one string,
+        // the items are still collected here, as the list is stored together with all of its items
+        const id = `${Date.now()}-${Math.random().toString(36).substring(2)}`;
+        const items: ListitemFileModel[] = [];
+        let onDone: ((data: { list: ListModel; total: number }) => void) | undefined = undefined;
+        const done = new Promise<{ list: ListModel; total: number }>(resolve => (onDone = resolve));
+        const listener = await SysInfo.addListener<{ id: string; items: ListitemFileModel[]; done?: boolean; list?: ListModel; total?: number }>("LISTFILE", data => {
+            if (data.id == id) {
+                if (Array.isArray(data.items)) {
+                    items.push(...data.items);
+                }
+                if (data.done) {
+                    onDone?.({ list: data.list ?? ({} as ListModel), total: data.total ?? 0 });
+                }
+            }
+        });
+        try {
+            // the call is rejected, if the file could not be parsed, otherwise the terminal batch is always sent before the call resolves
+            await SysInfo.ParseListFile({ path: file.uri, id: id });
+            const parsed = await done;
+            if (items.length != parsed.total) {
+                Logger.Error(`Importer: received ${items.length} of ${parsed.total} item(s) of list file '${file.uri}'`);
+                return undefined;
+            }
+            const json = parsed.list;
+            json.items = items;
+            return json;
+        } catch (e) {
+            Logger.Error(`Importer: could not parse file '${file.uri}':`, e);
+            return undefined;
+        } finally {
+            await listener.remove();
+        }
+    }
+
     private async getFileJson<T>(file: FileInfo): Promise<T | undefined> {
         let data = undefined;
         try {